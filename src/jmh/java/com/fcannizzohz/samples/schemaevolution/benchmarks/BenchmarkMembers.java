@@ -0,0 +1,49 @@
+package com.fcannizzohz.samples.schemaevolution.benchmarks;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+
+import java.util.UUID;
+
+/** Embedded members for the benchmarks, so they measure Hazelcast's real serialization path. */
+public final class BenchmarkMembers {
+
+    private BenchmarkMembers() {
+    }
+
+    public static String newClusterName() {
+        return UUID.randomUUID().toString();
+    }
+
+    /** Starts a member of its own single-member cluster. */
+    public static HazelcastInstance newMember(CompactSerializer<?>... serializers) {
+        return newMember(newClusterName(), serializers);
+    }
+
+    /** Starts a member of the given cluster; members of the same cluster share their Compact schemas. */
+    public static HazelcastInstance newMember(String clusterName, CompactSerializer<?>... serializers) {
+        return Hazelcast.newHazelcastInstance(newConfig(clusterName, serializers));
+    }
+
+    public static Config newConfig(String clusterName, CompactSerializer<?>... serializers) {
+        Config config = new Config();
+        config.setClusterName(clusterName);
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        for (CompactSerializer<?> serializer : serializers) {
+            config.getSerializationConfig().getCompactSerializationConfig().addSerializer(serializer);
+        }
+        return config;
+    }
+
+    public static SerializationService serializationService(HazelcastInstance member) {
+        return ((SerializationServiceSupport) member).getSerializationService();
+    }
+}
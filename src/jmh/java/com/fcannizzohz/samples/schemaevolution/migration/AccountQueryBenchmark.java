@@ -0,0 +1,102 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.OrderKey;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderKeySerializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.hazelcast.aggregation.Aggregators;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of reading and summing one account's orders in {@code orders_v3} keyed by order id,
+ * where the query runs on every partition, and keyed by {@link OrderKey}, where a partition
+ * predicate sends it to the account's partition only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountQueryBenchmark {
+
+    private static final int ORDERS_PER_ACCOUNT = 8;
+
+    @Param({"100000"})
+    public int entries;
+
+    @Param({"orderId", "orderKey"})
+    public String layout;
+
+    private HazelcastInstance member;
+    private IMap<Object, OrderV3> ordersV3;
+
+    @Setup
+    public void setup() {
+        member = BenchmarkMembers.newMember(new OrderV3Serializer(), new OrderKeySerializer());
+        ordersV3 = member.getMap("orders_v3");
+
+        Map<Object, OrderV3> batch = new HashMap<>();
+        for (long id = 0; id < entries; id++) {
+            OrderV3 order = new OrderV3(id, id / ORDERS_PER_ACCOUNT, BigDecimal.valueOf(id, 2), "pending", "USD");
+            batch.put(isRekeyed() ? OrderKey.of(order) : id, order);
+            if (batch.size() == 10_000) {
+                ordersV3.putAll(batch);
+                batch.clear();
+            }
+        }
+        ordersV3.putAll(batch);
+    }
+
+    @TearDown
+    public void tearDown() {
+        member.shutdown();
+    }
+
+    @Benchmark
+    public Collection<OrderV3> accountOrders() {
+        return ordersV3.values(accountPredicate(randomAccount()));
+    }
+
+    @Benchmark
+    public BigDecimal accountTotal() {
+        return ordersV3.aggregate(Aggregators.bigDecimalSum("amount"), accountPredicate(randomAccount()));
+    }
+
+    private Predicate<Object, OrderV3> accountPredicate(long accountId) {
+        Predicate<Object, OrderV3> byAccount = Predicates.equal("accountId", accountId);
+        // the account is the partition key of an OrderKey
+        return isRekeyed() ? Predicates.partitionPredicate(accountId, byAccount) : byAccount;
+    }
+
+    private long randomAccount() {
+        return ThreadLocalRandom.current().nextLong(entries / ORDERS_PER_ACCOUNT);
+    }
+
+    private boolean isRekeyed() {
+        return "orderKey".equals(layout);
+    }
+}
@@ -0,0 +1,113 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.SqlMappings;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.sql.SqlResult;
+import com.hazelcast.sql.SqlRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the {@code orders_v3} queries by account and status, through SQL and through
+ * predicates, with and without the indexes {@link DeferredIndexes#forOrdersV3()} builds.
+ * Each account has a handful of orders, so an indexed query touches a few entries and an
+ * unindexed one scans the whole map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrdersV3QueryBenchmark {
+
+    private static final int ORDERS_PER_ACCOUNT = 8;
+    private static final String[] STATUSES = {"pending", "ready", "paid", "shipped"};
+    private static final String QUERY = "SELECT __key FROM orders_v3 WHERE accountId = ? AND status = ?";
+
+    @Param({"100000"})
+    public int entries;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private HazelcastInstance member;
+    private IMap<Long, OrderV3> ordersV3;
+
+    @Setup
+    public void setup() {
+        Config config = BenchmarkMembers.newConfig(BenchmarkMembers.newClusterName(), new OrderV3Serializer());
+        // SQL runs on the Jet engine
+        config.getJetConfig().setEnabled(true);
+        member = Hazelcast.newHazelcastInstance(config);
+        ordersV3 = member.getMap("orders_v3");
+
+        Map<Long, OrderV3> batch = new HashMap<>();
+        for (long id = 0; id < entries; id++) {
+            String status = STATUSES[(int) (id % STATUSES.length)];
+            batch.put(id, new OrderV3(id, id / ORDERS_PER_ACCOUNT, BigDecimal.valueOf(id, 2), status, "USD"));
+            if (batch.size() == 10_000) {
+                ordersV3.putAll(batch);
+                batch.clear();
+            }
+        }
+        ordersV3.putAll(batch);
+
+        if (indexed) {
+            DeferredIndexes.forOrdersV3().build(member);
+        }
+        // DDL: nothing to read
+        member.getSql().execute(SqlMappings.createMapping("orders_v3", "bigint", new OrderV3Serializer(),
+                new OrderV3(0, 0, BigDecimal.ZERO, "", ""))).close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        member.shutdown();
+    }
+
+    @Benchmark
+    public int sql() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int rows = 0;
+        try (SqlResult result = member.getSql().execute(QUERY,
+                random.nextLong(entries / ORDERS_PER_ACCOUNT), STATUSES[random.nextInt(STATUSES.length)])) {
+            for (SqlRow ignored : result) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public int predicate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return ordersV3.keySet(Predicates.and(
+                Predicates.equal("accountId", random.nextLong(entries / ORDERS_PER_ACCOUNT)),
+                Predicates.equal("status", STATUSES[random.nextInt(STATUSES.length)])
+        )).size();
+    }
+}
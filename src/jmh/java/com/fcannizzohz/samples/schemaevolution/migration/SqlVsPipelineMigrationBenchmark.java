@@ -0,0 +1,91 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to migrate the whole {@code orders} map into {@code orders_v3} with
+ * {@link SqlMigration} and with {@link V2toV3PipelineFactory#createBulkPipeline()}, for
+ * several map sizes. SQL skips job planning for small maps; the pipeline avoids the SQL row
+ * conversion for large ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SqlVsPipelineMigrationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    private HazelcastInstance member;
+    private IMap<Long, Object> ordersV3;
+
+    @Setup
+    public void setup() {
+        Config config = BenchmarkMembers.newConfig(BenchmarkMembers.newClusterName(),
+                new OrderV2Serializer(), new OrderV3Serializer());
+        config.getJetConfig().setEnabled(true);
+        member = Hazelcast.newHazelcastInstance(config);
+        ordersV3 = member.getMap("orders_v3");
+
+        IMap<Long, OrderV2> orders = member.getMap("orders");
+        Map<Long, OrderV2> batch = new HashMap<>();
+        for (long id = 0; id < entries; id++) {
+            batch.put(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id, 2), "pending", "USD"));
+            if (batch.size() == 10_000) {
+                orders.putAll(batch);
+                batch.clear();
+            }
+        }
+        orders.putAll(batch);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTarget() {
+        ordersV3.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        member.shutdown();
+    }
+
+    @Benchmark
+    public int sql() {
+        SqlMigration.run(member);
+        return ordersV3.size();
+    }
+
+    @Benchmark
+    public int pipeline() {
+        member.getJet().newJob(V2toV3PipelineFactory.createBulkPipeline()).join();
+        return ordersV3.size();
+    }
+}
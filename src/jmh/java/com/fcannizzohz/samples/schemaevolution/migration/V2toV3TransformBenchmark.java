@@ -0,0 +1,89 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecord;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecordBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of the V2 to V3 conversion done by the bulk pipelines: deserialize the
+ * {@code orders} value, convert it, serialize the {@code orders_v3} value.
+ * <p>
+ * Throughput is records per second; run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm} for the bytes allocated per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class V2toV3TransformBenchmark {
+
+    // registers the domain serializers, as the members do for createBulkPipeline
+    private HazelcastInstance recordMember;
+    // registers nothing, so Compact values come back as GenericRecords, as for createGenericBulkPipeline
+    private HazelcastInstance genericMember;
+    private SerializationService recordSerialization;
+    private SerializationService genericSerialization;
+    private Data recordV2;
+    private Data genericV2;
+
+    @Setup
+    public void setup() {
+        recordMember = BenchmarkMembers.newMember(new OrderV2Serializer(), new OrderV3Serializer());
+        genericMember = BenchmarkMembers.newMember();
+        recordSerialization = BenchmarkMembers.serializationService(recordMember);
+        genericSerialization = BenchmarkMembers.serializationService(genericMember);
+
+        OrderV2 order = new OrderV2(42, 1234L, new BigDecimal("199.99"), "pending", "USD");
+        recordV2 = recordSerialization.toData(order);
+        genericV2 = genericSerialization.toData(GenericRecordBuilder.compact("com.acme.Order")
+                                                                     .setInt64("id", order.id())
+                                                                     .setInt64("customerId", order.customerId())
+                                                                     .setDecimal("amount", order.amount())
+                                                                     .setString("status", order.status())
+                                                                     .setString("currency", order.currency())
+                                                                     .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        recordMember.shutdown();
+        genericMember.shutdown();
+    }
+
+    @Benchmark
+    public Data recordPath() {
+        OrderV2 v2 = recordSerialization.toObject(recordV2);
+        OrderV3 v3 = V2toV3PipelineFactory.toOrderV3(v2);
+        return recordSerialization.toData(v3);
+    }
+
+    @Benchmark
+    public Data genericRecordPath() {
+        GenericRecord v2 = genericSerialization.toObject(genericV2);
+        GenericRecord v3 = V2toV3PipelineFactory.toOrderV3Record(v2);
+        return genericSerialization.toData(v3);
+    }
+}
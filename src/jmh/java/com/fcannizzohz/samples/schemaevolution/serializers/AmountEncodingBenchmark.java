@@ -0,0 +1,138 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.hazelcast.aggregation.Aggregators;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.sql.SqlResult;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap per entry and aggregation time of {@code orders} with the amount stored as a decimal
+ * (before) and as fixed-point minor units (after).
+ * <p>
+ * The aggregation is timed through SQL and through a member-side {@link Aggregators}
+ * aggregation. The owned entry memory cost per entry of the map is reported as the
+ * {@code heapBytesPerEntry} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmountEncodingBenchmark {
+
+    private static final String DECIMAL_MAPPING = """
+            CREATE OR REPLACE MAPPING orders (
+                id BIGINT,
+                amount DECIMAL
+            )
+            TYPE IMap
+            OPTIONS (
+                'keyFormat' = 'bigint',
+                'valueFormat' = 'compact',
+                'valueCompactTypeName' = 'com.acme.Order'
+            );
+            """;
+
+    private static final String FIXED_POINT_MAPPING = """
+            CREATE OR REPLACE MAPPING orders (
+                id BIGINT,
+                amountMinorUnits BIGINT,
+                amountScale INT
+            )
+            TYPE IMap
+            OPTIONS (
+                'keyFormat' = 'bigint',
+                'valueFormat' = 'compact',
+                'valueCompactTypeName' = 'com.acme.Order'
+            );
+            """;
+
+    @Param({"DECIMAL", "FIXED_POINT"})
+    public AmountEncoding encoding;
+
+    @Param({"1000000"})
+    public int entries;
+
+    private HazelcastInstance member;
+    private IMap<Long, OrderV2> orders;
+    private long heapBytesPerEntry;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long heapBytesPerEntry;
+    }
+
+    @Setup
+    public void setup() {
+        Config config = BenchmarkMembers.newConfig(BenchmarkMembers.newClusterName(), new OrderV2Serializer(encoding));
+        config.getJetConfig().setEnabled(true);
+        member = Hazelcast.newHazelcastInstance(config);
+        orders = member.getMap("orders");
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Long, OrderV2> batch = new HashMap<>();
+        for (long id = 0; id < entries; id++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2);
+            batch.put(id, new OrderV2(id, id % 10_000, amount, "pending", "GBP"));
+            if (batch.size() == 10_000) {
+                orders.putAll(batch);
+                batch.clear();
+            }
+        }
+        orders.putAll(batch);
+        heapBytesPerEntry = orders.getLocalMapStats().getOwnedEntryMemoryCost() / entries;
+
+        try (SqlResult ignored = member.getSql().execute(encoding == AmountEncoding.DECIMAL ? DECIMAL_MAPPING : FIXED_POINT_MAPPING)) {
+            // mapping created
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        member.shutdown();
+    }
+
+    @Benchmark
+    public Object sqlSum(Heap heap) {
+        heap.heapBytesPerEntry = heapBytesPerEntry;
+        String query = encoding == AmountEncoding.DECIMAL
+                ? "SELECT SUM(amount) FROM orders"
+                : "SELECT SUM(amountMinorUnits) FROM orders";
+        try (SqlResult result = member.getSql().execute(query)) {
+            return result.iterator().next().getObject(0);
+        }
+    }
+
+    @Benchmark
+    public Object aggregatorSum(Heap heap) {
+        heap.heapBytesPerEntry = heapBytesPerEntry;
+        return encoding == AmountEncoding.DECIMAL
+                ? orders.aggregate(Aggregators.bigDecimalSum("amount"))
+                : orders.aggregate(Aggregators.longSum("amountMinorUnits"));
+    }
+}
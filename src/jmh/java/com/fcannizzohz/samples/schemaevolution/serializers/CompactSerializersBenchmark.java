@@ -0,0 +1,122 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.Order;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write and read throughput of the Compact serializers, including the mixed-version reads a
+ * rolling upgrade produces: V2 reading V1 data, which takes the {@code currency} fallback in
+ * {@link OrderV2Serializer}, and V1 reading V2 data, which skips the field it doesn't know.
+ * <p>
+ * Each serializer is registered on its own member and the three members form one cluster, so
+ * every read and write goes through the member's {@code SerializationService} and the Compact
+ * schema lookup exactly as it does in production. Run with {@code -prof gc} for the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompactSerializersBenchmark {
+
+    private final Order v1Order = new Order(42, 1234L, new BigDecimal("199.99"), "pending");
+    private final OrderV2 v2Order = new OrderV2(42, 1234L, new BigDecimal("199.99"), "pending", "USD");
+    private final OrderV3 v3Order = new OrderV3(42, 1234L, new BigDecimal("199.99"), "pending", "USD");
+
+    private HazelcastInstance v1Member;
+    private HazelcastInstance v2Member;
+    private HazelcastInstance v3Member;
+    private SerializationService v1;
+    private SerializationService v2;
+    private SerializationService v3;
+    private Data v1Data;
+    private Data v2Data;
+    private Data v3Data;
+
+    @Setup
+    public void setup() {
+        String clusterName = BenchmarkMembers.newClusterName();
+        v1Member = BenchmarkMembers.newMember(clusterName, new OrderSerializer());
+        v2Member = BenchmarkMembers.newMember(clusterName, new OrderV2Serializer());
+        v3Member = BenchmarkMembers.newMember(clusterName, new OrderV3Serializer());
+        v1 = BenchmarkMembers.serializationService(v1Member);
+        v2 = BenchmarkMembers.serializationService(v2Member);
+        v3 = BenchmarkMembers.serializationService(v3Member);
+
+        v1Data = v1.toData(v1Order);
+        v2Data = v2.toData(v2Order);
+        v3Data = v3.toData(v3Order);
+        // storing a value publishes its schema to the cluster, so the other members can resolve it
+        v1Member.getMap("schemas").set(1L, v1Order);
+        v2Member.getMap("schemas").set(2L, v2Order);
+        v3Member.getMap("schemas").set(3L, v3Order);
+    }
+
+    @TearDown
+    public void tearDown() {
+        v1Member.shutdown();
+        v2Member.shutdown();
+        v3Member.shutdown();
+    }
+
+    @Benchmark
+    public Data writeV1() {
+        return v1.toData(v1Order);
+    }
+
+    @Benchmark
+    public Data writeV2() {
+        return v2.toData(v2Order);
+    }
+
+    @Benchmark
+    public Data writeV3() {
+        return v3.toData(v3Order);
+    }
+
+    @Benchmark
+    public Order readV1() {
+        return v1.toObject(v1Data);
+    }
+
+    @Benchmark
+    public OrderV2 readV2() {
+        return v2.toObject(v2Data);
+    }
+
+    @Benchmark
+    public OrderV3 readV3() {
+        return v3.toObject(v3Data);
+    }
+
+    @Benchmark
+    public OrderV2 readV1DataAsV2() {
+        return v2.toObject(v1Data);
+    }
+
+    @Benchmark
+    public Order readV2DataAsV1() {
+        return v1.toObject(v2Data);
+    }
+}
@@ -0,0 +1,129 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.Order;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write and read throughput of the {@code OrderV2} serializer generated from its binding in
+ * {@link OrderBindings}, against {@link OrderV2Serializer} and Hazelcast's reflective zero-config
+ * serializer. The hand-written one uses its default encodings, which the generated one's
+ * {@link OrderFieldCodecs} write too, so both write the same fields; the reflective one only
+ * writes the amount decimal. V1 data read as V2 takes the {@code currency} default. The
+ * reflective serializer has its own type name and can't read V1 data.
+ * <p>
+ * As in {@link CompactSerializersBenchmark}, each serializer is registered on its own member
+ * of one cluster. Run with {@code -prof gc} for the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratedSerializerBenchmark {
+
+    private final Order v1Order = new Order(42, 1234L, new BigDecimal("199.99"), "pending");
+    private final OrderV2 v2Order = new OrderV2(42, 1234L, new BigDecimal("199.99"), "pending", "USD");
+
+    private HazelcastInstance v1Member;
+    private HazelcastInstance handWrittenMember;
+    private HazelcastInstance generatedMember;
+    private HazelcastInstance reflectiveMember;
+    private SerializationService handWritten;
+    private SerializationService generated;
+    private SerializationService reflective;
+    private Data v1Data;
+    private Data handWrittenData;
+    private Data generatedData;
+    private Data reflectiveData;
+
+    @Setup
+    public void setup() {
+        String clusterName = BenchmarkMembers.newClusterName();
+        v1Member = BenchmarkMembers.newMember(clusterName, new OrderSerializer());
+        handWrittenMember = BenchmarkMembers.newMember(clusterName, new OrderV2Serializer());
+        generatedMember = BenchmarkMembers.newMember(clusterName, new OrderV2CompactSerializer());
+        // no serializer registered: the record is serialized reflectively
+        Config reflectiveConfig = BenchmarkMembers.newConfig(clusterName);
+        reflectiveConfig.getSerializationConfig().getCompactSerializationConfig().addClass(OrderV2.class);
+        reflectiveMember = Hazelcast.newHazelcastInstance(reflectiveConfig);
+        handWritten = BenchmarkMembers.serializationService(handWrittenMember);
+        generated = BenchmarkMembers.serializationService(generatedMember);
+        reflective = BenchmarkMembers.serializationService(reflectiveMember);
+
+        v1Data = BenchmarkMembers.serializationService(v1Member).toData(v1Order);
+        handWrittenData = handWritten.toData(v2Order);
+        generatedData = generated.toData(v2Order);
+        reflectiveData = reflective.toData(v2Order);
+        // storing a value publishes its schema to the cluster, so the other members can resolve it
+        v1Member.getMap("schemas").set(1L, v1Order);
+    }
+
+    @TearDown
+    public void tearDown() {
+        v1Member.shutdown();
+        handWrittenMember.shutdown();
+        generatedMember.shutdown();
+        reflectiveMember.shutdown();
+    }
+
+    @Benchmark
+    public Data writeHandWritten() {
+        return handWritten.toData(v2Order);
+    }
+
+    @Benchmark
+    public Data writeGenerated() {
+        return generated.toData(v2Order);
+    }
+
+    @Benchmark
+    public Data writeReflective() {
+        return reflective.toData(v2Order);
+    }
+
+    @Benchmark
+    public OrderV2 readHandWritten() {
+        return handWritten.toObject(handWrittenData);
+    }
+
+    @Benchmark
+    public OrderV2 readGenerated() {
+        return generated.toObject(generatedData);
+    }
+
+    @Benchmark
+    public OrderV2 readReflective() {
+        return reflective.toObject(reflectiveData);
+    }
+
+    @Benchmark
+    public OrderV2 readV1DataHandWritten() {
+        return handWritten.toObject(v1Data);
+    }
+
+    @Benchmark
+    public OrderV2 readV1DataGenerated() {
+        return generated.toObject(v1Data);
+    }
+}
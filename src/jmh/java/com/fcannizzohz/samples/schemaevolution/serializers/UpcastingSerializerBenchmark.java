@@ -0,0 +1,95 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.benchmarks.BenchmarkMembers;
+import com.fcannizzohz.samples.schemaevolution.model.Order;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read throughput of {@link OrderUpcasters#orderV3Serializer()} against
+ * {@link OrderV2Serializer}, on V1 and V2 data. The V2 serializer probes the record's schema
+ * with {@code getFieldKind} on every read; the upcasting one resolves a read plan once per
+ * schema and then reads the fields directly, renaming {@code customerId} on the way.
+ * <p>
+ * As in {@link CompactSerializersBenchmark}, each serializer is registered on its own member
+ * of one cluster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpcastingSerializerBenchmark {
+
+    private final Order v1Order = new Order(42, 1234L, new BigDecimal("199.99"), "pending");
+    private final OrderV2 v2Order = new OrderV2(42, 1234L, new BigDecimal("199.99"), "pending", "USD");
+
+    private HazelcastInstance v1Member;
+    private HazelcastInstance v2Member;
+    private HazelcastInstance upcastingMember;
+    private SerializationService v2;
+    private SerializationService upcasting;
+    private Data v1Data;
+    private Data v2Data;
+
+    @Setup
+    public void setup() {
+        String clusterName = BenchmarkMembers.newClusterName();
+        v1Member = BenchmarkMembers.newMember(clusterName, new OrderSerializer());
+        v2Member = BenchmarkMembers.newMember(clusterName, new OrderV2Serializer());
+        upcastingMember = BenchmarkMembers.newMember(clusterName, OrderUpcasters.orderV3Serializer());
+        v2 = BenchmarkMembers.serializationService(v2Member);
+        upcasting = BenchmarkMembers.serializationService(upcastingMember);
+
+        v1Data = BenchmarkMembers.serializationService(v1Member).toData(v1Order);
+        v2Data = v2.toData(v2Order);
+        // storing a value publishes its schema to the cluster, so the other members can resolve it
+        v1Member.getMap("schemas").set(1L, v1Order);
+        v2Member.getMap("schemas").set(2L, v2Order);
+    }
+
+    @TearDown
+    public void tearDown() {
+        v1Member.shutdown();
+        v2Member.shutdown();
+        upcastingMember.shutdown();
+    }
+
+    @Benchmark
+    public OrderV2 readV1DataAsV2() {
+        return v2.toObject(v1Data);
+    }
+
+    @Benchmark
+    public OrderV3 readV1DataUpcast() {
+        return upcasting.toObject(v1Data);
+    }
+
+    @Benchmark
+    public OrderV2 readV2DataAsV2() {
+        return v2.toObject(v2Data);
+    }
+
+    @Benchmark
+    public OrderV3 readV2DataUpcast() {
+        return upcasting.toObject(v2Data);
+    }
+}
@@ -0,0 +1,20 @@
+package com.fcannizzohz.samples.schemaevolution.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the serializer of another record: the annotated record, also annotated with
+ * {@link TypeName}, repeats the components of {@link #value()} with the same names and types,
+ * and carries their annotations. The serializer is generated for {@link #value()}, named after
+ * it, in the package of the annotated record. This keeps codecs and defaults that live with
+ * the serializers out of the domain records.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface BindingFor {
+
+    Class<? extends Record> value();
+}
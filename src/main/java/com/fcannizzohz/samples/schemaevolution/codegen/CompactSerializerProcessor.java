@@ -0,0 +1,326 @@
+package com.fcannizzohz.samples.schemaevolution.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code CompactSerializer} for every record annotated with {@link TypeName}.
+ * <p>
+ * The generated code is what a hand-written serializer would be: one typed
+ * {@code writeXxx}/{@code readXxx} call per component and the canonical constructor, with no
+ * reflection, no boxing of primitive components and no per-record allocation beyond the record
+ * itself. Only components with a {@link FieldDefault} or a {@link FieldAlias} probe the
+ * record's schema with {@code getFieldKind}, and only for the names they may be stored under.
+ * <p>
+ * Components may be primitives, their wrappers (written as nullable fields),
+ * {@code String} or {@code BigDecimal}; anything else is reported as a compile error. A
+ * component annotated with {@link EncodedWith} is written and read by its {@link FieldCodec}
+ * instead, whatever its type, so that the generated serializer reads every form the
+ * hand-written serializers store it in.
+ * <p>
+ * A record annotated with {@link BindingFor} declares the serializer of the record it names
+ * instead of its own, so that the annotations can live next to the codecs they refer to.
+ * <p>
+ * The processor is packaged in the {@code processor} classifier jar, not the main one, so it
+ * only runs in builds that put it on their processor path.
+ */
+@SupportedAnnotationTypes("com.fcannizzohz.samples.schemaevolution.codegen.TypeName")
+public final class CompactSerializerProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "CompactSerializer";
+
+    private static final String FIELD_KIND = "com.hazelcast.nio.serialization.FieldKind";
+
+    private static final String FIELD_CODEC = "com.fcannizzohz.samples.schemaevolution.codegen.FieldCodec";
+
+    /** Compact field kind suffix of each supported component type, as in {@code writeInt64}. */
+    private static final Map<String, String> KINDS = Map.ofEntries(
+            Map.entry("boolean", "Boolean"),
+            Map.entry("byte", "Int8"),
+            Map.entry("short", "Int16"),
+            Map.entry("int", "Int32"),
+            Map.entry("long", "Int64"),
+            Map.entry("float", "Float32"),
+            Map.entry("double", "Float64"),
+            Map.entry("java.lang.Boolean", "NullableBoolean"),
+            Map.entry("java.lang.Byte", "NullableInt8"),
+            Map.entry("java.lang.Short", "NullableInt16"),
+            Map.entry("java.lang.Integer", "NullableInt32"),
+            Map.entry("java.lang.Long", "NullableInt64"),
+            Map.entry("java.lang.Float", "NullableFloat32"),
+            Map.entry("java.lang.Double", "NullableFloat64"),
+            Map.entry("java.lang.String", "String"),
+            Map.entry("java.math.BigDecimal", "Decimal"));
+
+    /** A component read by a typed call of the {@code kind} suffix, or by its {@code codec} class. */
+    private record Component(String name, String kind, String codec, List<String> storedNames, String defaultValue) {
+
+        String codecField() {
+            return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase() + "_CODEC";
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(TypeName.class)) {
+            if (element.getKind() != ElementKind.RECORD) {
+                error(element, "@TypeName is only supported on records");
+                continue;
+            }
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                error(element, "@TypeName records must not be private");
+                continue;
+            }
+            TypeElement record = (TypeElement) element;
+            TypeElement target = target(record);
+            List<Component> components = components(record);
+            if (target != null && components != null) {
+                generate(record, target, components);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The record the serializer is generated for: the record itself, or the one named by its
+     * {@link BindingFor}, provided it has the same components. Null if it doesn't.
+     */
+    private TypeElement target(TypeElement record) {
+        if (record.getAnnotation(BindingFor.class) == null) {
+            return record;
+        }
+        TypeMirror bound;
+        try {
+            record.getAnnotation(BindingFor.class).value();
+            throw new IllegalStateException("bound record resolved at compile time");
+        } catch (MirroredTypeException e) {
+            bound = e.getTypeMirror();
+        }
+        var types = processingEnv.getTypeUtils();
+        TypeElement target = (TypeElement) types.asElement(bound);
+        List<? extends RecordComponentElement> expected = target.getRecordComponents();
+        List<? extends RecordComponentElement> actual = record.getRecordComponents();
+        boolean same = expected.size() == actual.size();
+        for (int i = 0; same && i < expected.size(); i++) {
+            same = expected.get(i).getSimpleName().contentEquals(actual.get(i).getSimpleName())
+                    && types.isSameType(expected.get(i).asType(), actual.get(i).asType());
+        }
+        if (!same) {
+            error(record, "components don't match those of " + target.getQualifiedName());
+            return null;
+        }
+        return target;
+    }
+
+    /** The record's components in declaration order, or null if one of them is not supported. */
+    private List<Component> components(TypeElement record) {
+        List<Component> components = new ArrayList<>();
+        boolean valid = true;
+        for (RecordComponentElement component : record.getRecordComponents()) {
+            String name = component.getSimpleName().toString();
+            String type = component.asType().toString();
+            FieldAlias alias = component.getAnnotation(FieldAlias.class);
+            String codec = null;
+            if (component.getAnnotation(EncodedWith.class) != null) {
+                codec = codec(component, alias != null);
+                if (codec == null) {
+                    valid = false;
+                    continue;
+                }
+            }
+            String kind = KINDS.get(type);
+            if (kind == null && codec == null) {
+                error(component, "unsupported component type " + type);
+                valid = false;
+                continue;
+            }
+            List<String> storedNames = new ArrayList<>();
+            storedNames.add(name);
+            if (alias != null) {
+                storedNames.addAll(List.of(alias.value()));
+            }
+            FieldDefault fieldDefault = component.getAnnotation(FieldDefault.class);
+            String defaultValue = null;
+            if (fieldDefault != null) {
+                defaultValue = literal(component, component.asType(), fieldDefault.value());
+                if (defaultValue == null) {
+                    valid = false;
+                    continue;
+                }
+                if (kind != null && kind.startsWith("Nullable")) {
+                    // boxed, or the conditional read would unbox a stored null
+                    defaultValue = type + ".valueOf(" + defaultValue + ")";
+                }
+            }
+            components.add(new Component(name, kind, codec, storedNames, defaultValue));
+        }
+        return valid ? components : null;
+    }
+
+    /** Qualified name of the component's {@link EncodedWith} codec, or null if it can't encode the component. */
+    private String codec(RecordComponentElement component, boolean aliased) {
+        TypeMirror codec;
+        try {
+            component.getAnnotation(EncodedWith.class).value();
+            throw new IllegalStateException("codec class resolved at compile time");
+        } catch (MirroredTypeException e) {
+            codec = e.getTypeMirror();
+        }
+        if (component.asType().getKind().isPrimitive()) {
+            error(component, "@EncodedWith is not supported on primitive components");
+            return null;
+        }
+        if (aliased) {
+            error(component, "@EncodedWith is not supported together with @FieldAlias");
+            return null;
+        }
+        var types = processingEnv.getTypeUtils();
+        TypeElement fieldCodec = processingEnv.getElementUtils().getTypeElement(FIELD_CODEC);
+        if (!types.isAssignable(codec, types.getDeclaredType(fieldCodec, component.asType()))) {
+            error(component, codec + " is not a FieldCodec<" + component.asType() + ">");
+            return null;
+        }
+        return ((TypeElement) types.asElement(codec)).getQualifiedName().toString();
+    }
+
+    /** Java source for the default value, or null if it doesn't convert to the component's type. */
+    private String literal(Element component, TypeMirror type, String value) {
+        var elements = processingEnv.getElementUtils();
+        try {
+            return switch (type.toString()) {
+                case "java.lang.String" -> elements.getConstantExpression(value);
+                case "java.math.BigDecimal" ->
+                        "new java.math.BigDecimal(" + elements.getConstantExpression(new java.math.BigDecimal(value).toString()) + ")";
+                case "boolean", "java.lang.Boolean" -> switch (value) {
+                    case "true", "false" -> value;
+                    default -> throw new IllegalArgumentException(value);
+                };
+                case "byte", "java.lang.Byte" -> elements.getConstantExpression(Byte.parseByte(value));
+                case "short", "java.lang.Short" -> elements.getConstantExpression(Short.parseShort(value));
+                case "int", "java.lang.Integer" -> elements.getConstantExpression(Integer.parseInt(value));
+                case "long", "java.lang.Long" -> elements.getConstantExpression(Long.parseLong(value));
+                case "float", "java.lang.Float" -> elements.getConstantExpression(Float.parseFloat(value));
+                case "double", "java.lang.Double" -> elements.getConstantExpression(Double.parseDouble(value));
+                default -> throw new IllegalArgumentException(value);
+            };
+        } catch (IllegalArgumentException e) {
+            error(component, "@FieldDefault(\"" + value + "\") is not a valid " + type);
+            return null;
+        }
+    }
+
+    private void generate(TypeElement record, TypeElement target, List<Component> components) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(record);
+        String packageName = pkg.getQualifiedName().toString();
+        String recordName = target.getQualifiedName().toString();
+        String serializerName = target.getSimpleName() + SUFFIX;
+        String typeName = record.getAnnotation(TypeName.class).value();
+        String qualifiedName = pkg.isUnnamed() ? serializerName : packageName + "." + serializerName;
+
+        try (PrintWriter out = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(qualifiedName, record).openWriter())) {
+            if (!pkg.isUnnamed()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + serializerName
+                    + " implements com.hazelcast.nio.serialization.compact.CompactSerializer<" + recordName + "> {");
+            out.println();
+            boolean codecs = false;
+            for (Component c : components) {
+                if (c.codec() != null) {
+                    out.println("    private static final " + c.codec() + " " + c.codecField() + " = new " + c.codec() + "();");
+                    codecs = true;
+                }
+            }
+            if (codecs) {
+                out.println();
+            }
+            out.println("    @Override");
+            out.println("    public String getTypeName() {");
+            out.println("        return " + processingEnv.getElementUtils().getConstantExpression(typeName) + ";");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + recordName + "> getCompactClass() {");
+            out.println("        return " + recordName + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void write(com.hazelcast.nio.serialization.compact.CompactWriter w, "
+                    + recordName + " o) {");
+            for (Component c : components) {
+                out.println(c.codec() != null
+                        ? "        " + c.codecField() + ".write(w, \"" + c.name() + "\", o." + c.name() + "());"
+                        : "        w.write" + c.kind() + "(\"" + c.name() + "\", o." + c.name() + "());");
+            }
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + recordName + " read(com.hazelcast.nio.serialization.compact.CompactReader r) {");
+            out.println("        return new " + recordName + "(");
+            for (int i = 0; i < components.size(); i++) {
+                out.println("                " + readExpression(components.get(i))
+                        + (i < components.size() - 1 ? "," : ");"));
+            }
+            if (components.isEmpty()) {
+                out.println("        );");
+            }
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            error(record, "cannot write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the component from the first of its names the record has, newest first, falling
+     * back to its default. Without a default the oldest name is read unconditionally, so a
+     * record with none of the names fails as it would with a hand-written serializer. A codec
+     * finds the component's encoding and falls back to the default itself.
+     */
+    private static String readExpression(Component c) {
+        if (c.codec() != null) {
+            return c.codecField() + ".read(r, \"" + c.name() + "\", " + c.defaultValue() + ")";
+        }
+        List<String> names = c.storedNames();
+        int probed = c.defaultValue() == null ? names.size() - 1 : names.size();
+        String expression = c.defaultValue() == null ? read(c, names.get(probed)) : c.defaultValue();
+        for (int i = probed - 1; i >= 0; i--) {
+            expression = "r.getFieldKind(\"" + names.get(i) + "\") != " + FIELD_KIND + ".NOT_AVAILABLE ? "
+                    + read(c, names.get(i)) + " : " + expression;
+        }
+        return expression;
+    }
+
+    private static String read(Component c, String name) {
+        return "r.read" + c.kind() + "(\"" + name + "\")";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,19 @@
+package com.fcannizzohz.samples.schemaevolution.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Codec of a record component that hand-written serializers store in more than one form, such
+ * as a decimal that may also be kept in fixed point. The generated serializer writes and reads
+ * the component through it instead of a single typed call, so it reads records written in any
+ * of the forms. Not supported on primitive components, nor together with {@link FieldAlias}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface EncodedWith {
+
+    Class<? extends FieldCodec<?>> value();
+}
@@ -0,0 +1,17 @@
+package com.fcannizzohz.samples.schemaevolution.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Former names of a renamed record component, newest first. Records that have none of the
+ * component's names read as its {@link FieldDefault}, and fail to read without one.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface FieldAlias {
+
+    String[] value();
+}
@@ -0,0 +1,17 @@
+package com.fcannizzohz.samples.schemaevolution.codegen;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * Writes and reads a record component stored in an encoding of its own, for components
+ * annotated with {@link EncodedWith}. The generated serializer creates one instance with the
+ * public no-argument constructor and shares it between threads.
+ */
+public interface FieldCodec<T> {
+
+    void write(CompactWriter w, String field, T value);
+
+    /** Reads the field in whichever encoding it was written, or returns the default if the record has none. */
+    T read(CompactReader r, String field, T defaultValue);
+}
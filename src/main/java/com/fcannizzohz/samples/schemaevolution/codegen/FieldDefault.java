@@ -0,0 +1,19 @@
+package com.fcannizzohz.samples.schemaevolution.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Value of a record component added in a later version, for records written before it
+ * existed. It is given as text and converted to the component's type at compile time: the
+ * text itself for a {@code String}, a literal for primitives and their wrappers, the decimal
+ * for a {@code BigDecimal}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.RECORD_COMPONENT)
+public @interface FieldDefault {
+
+    String value();
+}
@@ -0,0 +1,19 @@
+package com.fcannizzohz.samples.schemaevolution.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@code CompactSerializer} for the annotated record, named after it with a
+ * {@code CompactSerializer} suffix, in the same package, or for the record named by its
+ * {@link BindingFor}. Each component is written as a field of the same name.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface TypeName {
+
+    /** Compact type name: records sharing it are versions of the same logical type. */
+    String value();
+}
@@ -0,0 +1,111 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.core.ReadOnly;
+import com.hazelcast.jet.pipeline.ServiceFactories;
+import com.hazelcast.jet.pipeline.ServiceFactory;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Translates customer ids into account ids through a lookup map, with a bounded LRU cache of
+ * recent translations shared by all processors of a member.
+ * <p>
+ * The ids of a batch missing from the cache are looked up with a single
+ * {@link IMap#submitToKeys}: it is asynchronous, and each id is read by the member owning its
+ * partition of the lookup map, with one operation per partition rather than one per id.
+ * Customers missing from the lookup map are their own account, the identity mapping the
+ * pipelines apply to every customer when they are given no translator.
+ * <p>
+ * Cache hits and misses are published as {@link MigrationMetrics#ID_CACHE_HITS} and
+ * {@link MigrationMetrics#ID_CACHE_MISSES}, see {@link MigrationMetrics#idCacheHitRate}.
+ */
+public final class AccountIdTranslator implements IdTranslator {
+
+    /** Lookup map from customer id to account id. */
+    public static final String CUSTOMER_ACCOUNTS = "customer_accounts";
+    public static final int DEFAULT_CACHE_SIZE = 100_000;
+
+    private static final EntryProcessor<Long, Long, Long> READ_VALUE = new ReadValue();
+
+    private final IMap<Long, Long> lookup;
+    private final Map<Long, Long> cache;
+
+    AccountIdTranslator(IMap<Long, Long> lookup, int cacheSize) {
+        this.lookup = lookup;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static ServiceFactory<?, AccountIdTranslator> serviceFactory() {
+        return serviceFactory(CUSTOMER_ACCOUNTS, DEFAULT_CACHE_SIZE);
+    }
+
+    public static ServiceFactory<?, AccountIdTranslator> serviceFactory(String lookupMapName, int cacheSize) {
+        return ServiceFactories.sharedService(ctx ->
+                new AccountIdTranslator(ctx.hazelcastInstance().getMap(lookupMapName), cacheSize));
+    }
+
+    @Override
+    public CompletableFuture<List<Long>> translate(List<Long> customerIds) {
+        Long[] accountIds = new Long[customerIds.size()];
+        Set<Long> missing = new HashSet<>();
+        synchronized (cache) {
+            for (int i = 0; i < accountIds.length; i++) {
+                accountIds[i] = cache.get(customerIds.get(i));
+                if (accountIds[i] == null) {
+                    missing.add(customerIds.get(i));
+                }
+            }
+        }
+        int misses = (int) Arrays.stream(accountIds).filter(a -> a == null).count();
+        // called on the processor's thread: the metrics are attributed to it
+        MigrationMetrics.recordIdLookups(accountIds.length - misses, misses);
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(accountIds));
+        }
+        return lookup.submitToKeys(missing, READ_VALUE).toCompletableFuture().thenApply(found -> {
+            Map<Long, Long> translated = new HashMap<>();
+            for (Long customerId : missing) {
+                Long accountId = found.get(customerId);
+                translated.put(customerId, accountId != null ? accountId : customerId);
+            }
+            synchronized (cache) {
+                cache.putAll(translated);
+            }
+            for (int i = 0; i < accountIds.length; i++) {
+                if (accountIds[i] == null) {
+                    accountIds[i] = translated.get(customerIds.get(i));
+                }
+            }
+            return Arrays.asList(accountIds);
+        });
+    }
+
+    private static final class ReadValue implements EntryProcessor<Long, Long, Long>, ReadOnly {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Long process(Map.Entry<Long, Long> entry) {
+            return entry.getValue();
+        }
+
+        @Override
+        public EntryProcessor<Long, Long, Long> getBackupProcessor() {
+            return null;
+        }
+    }
+}
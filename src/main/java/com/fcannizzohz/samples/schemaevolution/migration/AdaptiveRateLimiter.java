@@ -0,0 +1,162 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.pipeline.ServiceFactories;
+import com.hazelcast.jet.pipeline.ServiceFactory;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.PartitionService;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Paces a migration stage so that it doesn't degrade the latency of the live map.
+ * <p>
+ * Every {@value #ADJUST_INTERVAL_MILLIS} ms the limiter times a few {@code get} calls on a key
+ * of the live map that this member owns, with {@link System#nanoTime()}, and compares their
+ * median with a target: above it the rate is halved, otherwise it grows by a twentieth of the
+ * cap (additive increase, multiplicative decrease). The probe goes through the same partition
+ * threads as the live traffic, so it slows down when they are busy, and it measures sub-millisecond
+ * latencies that the map statistics, kept in whole milliseconds, can't. The rate never exceeds the
+ * cap, which is given in records per second for the whole job and split evenly between the members.
+ * <p>
+ * Both limits are read from the job arguments {@link #MAX_RECORDS_PER_SECOND} and
+ * {@link #TARGET_LATENCY_MILLIS}, so they are chosen at job submission. One limiter is
+ * shared by all processors of a member.
+ */
+public final class AdaptiveRateLimiter {
+
+    /** Job argument: records per second the whole job migrates at most. */
+    public static final String MAX_RECORDS_PER_SECOND = "migration.maxRecordsPerSecond";
+    /** Job argument: live map operation latency, in milliseconds, possibly fractional, above which the migration slows down. */
+    public static final String TARGET_LATENCY_MILLIS = "migration.targetLatencyMillis";
+
+    public static final long DEFAULT_MAX_RECORDS_PER_SECOND = 10_000;
+    public static final long DEFAULT_TARGET_LATENCY_MILLIS = 5;
+
+    private static final long ADJUST_INTERVAL_MILLIS = 200;
+    private static final int PROBES_PER_ADJUSTMENT = 5;
+    private static final String PROBE_KEY_PREFIX = "__migration-rate-probe-";
+    // enough candidates to find one in a partition of any member
+    private static final int PROBE_KEY_CANDIDATES = 10_000;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_STEPS = 20;
+    private static final double MIN_RECORDS_PER_SECOND = 10;
+
+    private final LongSupplier latencyProbeNanos;
+    private final double maxRate;
+    private final double minRate;
+    private final double targetLatencyNanos;
+
+    private double rate;
+    private long nextSlotNanos;
+    private long nextAdjustNanos;
+
+    /**
+     * @param latencyProbeNanos runs one live map operation and returns how long it took, in nanoseconds
+     */
+    public AdaptiveRateLimiter(LongSupplier latencyProbeNanos, double maxRate, double targetLatencyMillis) {
+        this.latencyProbeNanos = latencyProbeNanos;
+        this.maxRate = maxRate;
+        this.minRate = Math.min(MIN_RECORDS_PER_SECOND, maxRate);
+        this.targetLatencyNanos = targetLatencyMillis * MILLISECONDS.toNanos(1);
+        this.rate = maxRate;
+        long now = System.nanoTime();
+        this.nextSlotNanos = now;
+        this.nextAdjustNanos = now + MILLISECONDS.toNanos(ADJUST_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Non-cooperative service factory of the limiter, probing {@code liveMapName} on each member.
+     */
+    public static ServiceFactory<?, AdaptiveRateLimiter> serviceFactory(String liveMapName) {
+        return ServiceFactories.sharedService(ctx -> {
+            HazelcastInstance hz = ctx.hazelcastInstance();
+            long maxRecordsPerSecond = Long.parseLong(
+                    argument(ctx.jobConfig(), MAX_RECORDS_PER_SECOND, DEFAULT_MAX_RECORDS_PER_SECOND));
+            double targetLatencyMillis = Double.parseDouble(
+                    argument(ctx.jobConfig(), TARGET_LATENCY_MILLIS, DEFAULT_TARGET_LATENCY_MILLIS));
+            int members = hz.getCluster().getMembers().size();
+            return new AdaptiveRateLimiter(getLatencyProbe(hz, liveMapName),
+                    (double) maxRecordsPerSecond / members, targetLatencyMillis);
+        }).toNonCooperative();
+    }
+
+    /** Times a {@code get} of a key, usually absent, in a partition this member owned when the probe was made. */
+    private static LongSupplier getLatencyProbe(HazelcastInstance hz, String liveMapName) {
+        IMap<String, Object> live = hz.getMap(liveMapName);
+        PartitionService partitions = hz.getPartitionService();
+        String probeKey = IntStream.range(0, PROBE_KEY_CANDIDATES)
+                                   .mapToObj(i -> PROBE_KEY_PREFIX + i)
+                                   .filter(k -> {
+                                       Member owner = partitions.getPartition(k).getOwner();
+                                       return owner != null && owner.localMember();
+                                   })
+                                   .findFirst()
+                                   .orElse(PROBE_KEY_PREFIX);
+        return () -> {
+            long start = System.nanoTime();
+            live.get(probeKey);
+            return System.nanoTime() - start;
+        };
+    }
+
+    private static String argument(JobConfig config, String name, long defaultValue) {
+        Object value = config.getArgument(name);
+        return String.valueOf(value == null ? defaultValue : value);
+    }
+
+    /** Waits for a slot and returns the item unchanged, for use in {@code mapUsingService}. */
+    public <T> T pass(T item) {
+        acquire();
+        return item;
+    }
+
+    /** Blocks until the next record may be migrated. */
+    public void acquire() {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now >= nextAdjustNanos) {
+                adjust();
+                nextAdjustNanos = now + MILLISECONDS.toNanos(ADJUST_INTERVAL_MILLIS);
+            }
+            // idle time earns no credit: a pause never turns into a burst
+            nextSlotNanos = Math.max(nextSlotNanos, now);
+            wait = nextSlotNanos - now;
+            nextSlotNanos += (long) (SECONDS.toNanos(1) / rate);
+        }
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    /** Records per second this limiter currently lets through. */
+    public synchronized double rate() {
+        return rate;
+    }
+
+    /**
+     * Probes the live map, compares the median latency with the target and updates the rate.
+     * {@link #acquire()} calls it every {@value #ADJUST_INTERVAL_MILLIS} ms.
+     */
+    public synchronized void adjust() {
+        long[] latencies = new long[PROBES_PER_ADJUSTMENT];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = latencyProbeNanos.getAsLong();
+        }
+        Arrays.sort(latencies);
+        // the median: a single stalled probe doesn't halve the rate
+        boolean overTarget = latencies[latencies.length / 2] > targetLatencyNanos;
+        rate = overTarget
+                ? Math.max(minRate, rate * DECREASE_FACTOR)
+                : Math.min(maxRate, rate + maxRate / INCREASE_STEPS);
+    }
+}
@@ -0,0 +1,578 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.cluster.Address;
+import com.hazelcast.core.EntryEventType;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.function.FunctionEx;
+import com.hazelcast.function.PredicateEx;
+import com.hazelcast.internal.journal.EventJournalInitialSubscriberState;
+import com.hazelcast.internal.journal.EventJournalReader;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.metrics.Metric;
+import com.hazelcast.jet.core.metrics.Metrics;
+import com.hazelcast.jet.core.metrics.Unit;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.map.EventJournalMapEvent;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.impl.proxy.MapProxyImpl;
+import com.hazelcast.ringbuffer.ReadResultSet;
+import com.hazelcast.ringbuffer.StaleSequenceException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Streaming source that first copies the map and then follows its event journal, without a
+ * gap between the two and without a copied value overwriting a newer one.
+ * <p>
+ * Right before copying a partition it records the partition's next journal sequence. Keys that
+ * already have journal events past that sequence are left out of the copy: those events carry a
+ * later value. The partition is then copied from the map, and afterwards the journal is read
+ * from exactly the recorded sequence, so every change made after it is replayed. A key changed
+ * while the copy is in progress is copied, with its old or its new value, and then written again
+ * from the journal. Journal versions therefore always land after copied ones.
+ * <p>
+ * Items are {@code Map.Entry<K, V>}, with a {@code null} value for removals. Each member reads
+ * the partitions it owns when the job starts, spread round-robin over its processors. Offsets of partitions that have been
+ * copied are saved to snapshots, so after a restart only the partitions that were not fully
+ * copied are copied again and the journal is resumed where it was left. Replay after a
+ * restart is at-least-once.
+ * <p>
+ * Once a second, the lag of every copied partition, the journal head minus the next sequence
+ * to read, is compared with the partition's share of the journal capacity. Each partition's
+ * lag is published as {@link MigrationMetrics#JOURNAL_LAG_PARTITION_PREFIX} followed by the
+ * partition id, and the largest one as {@link MigrationMetrics#JOURNAL_LAG} and
+ * {@link MigrationMetrics#JOURNAL_FILL_PERCENT}. A partition whose lag exceeds the configured
+ * fraction of the capacity, or whose events were already overwritten, is handled according to
+ * the {@link JournalOverflowPolicy}.
+ * <p>
+ * A partition copied again under {@link JournalOverflowPolicy#REBACKFILL} first removes the
+ * target keys that are no longer in the source. The items emitted for it before may still be
+ * on their way to the target, so with a processing guarantee the copy waits for the next
+ * snapshot to commit: the sink writes everything it received before the snapshot barrier
+ * before it completes the snapshot. Without a processing guarantee there are no snapshots and
+ * the copy starts right away. A key emitted just before then may still reach the target after
+ * the stale keys were listed, and stay there after the source has removed it.
+ * <p>
+ * The copy's progress is published as {@link MigrationMetrics#PARTITIONS_TOTAL} and
+ * {@link MigrationMetrics#PARTITIONS_COMPLETED}; a partition copied again counts as not
+ * completed until its new copy is done.
+ * <p>
+ * Whenever a partition's copy or journal batch has been emitted, the newest journal sequence
+ * it covers is published as {@link MigrationMetrics#JOURNAL_SEQUENCE_PARTITION_PREFIX}
+ * followed by the partition id, and stored under the partition id in the
+ * {@link #progressMapName progress map} of the source, which {@link CutoverCoordinator} reads
+ * without waiting for the next metrics collection. A copy covers the sequences before the
+ * journal offset it started from.
+ */
+public final class BackfillThenTailP<K, V> extends AbstractProcessor {
+
+    public static final double DEFAULT_LAG_THRESHOLD = 0.8;
+
+    private static final int FETCH_SIZE = 1024;
+    private static final int MAX_JOURNAL_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = MILLISECONDS.toNanos(10);
+    private static final long TAIL_POLL_NANOS = MILLISECONDS.toNanos(1);
+    private static final long LAG_CHECK_INTERVAL_NANOS = SECONDS.toNanos(1);
+    // saved in place of the offset of a partition that must be copied again
+    private static final long REBACKFILL_PENDING = -1;
+
+    private static final PredicateEx<EventJournalMapEvent<?, ?>> PUT_OR_REMOVE = e ->
+            e.getType() == EntryEventType.ADDED
+                    || e.getType() == EntryEventType.UPDATED
+                    || e.getType() == EntryEventType.REMOVED;
+
+    private final String sourceMapName;
+    private final String targetMapName;
+    private final JournalOverflowPolicy overflowPolicy;
+    private final double lagThreshold;
+    // partitions owned by this member when the job started
+    private final int[] memberPartitions;
+
+    private ILogger logger;
+    private MapProxyImpl<K, V> map;
+    private MapProxyImpl<K, Object> target;
+    private EventJournalReader<EventJournalMapEvent<K, V>> journal;
+    private int[] partitions;
+    // next journal sequence to read, indexed like partitions
+    private long[] offsets;
+    // outstanding journal read of each copied partition, from its offset, indexed like partitions
+    private CompletableFuture<ReadResultSet<Map.Entry<K, V>>>[] tailReads;
+    private boolean[] backfilled;
+    // partitions to copy again, removing the target keys that left the source meanwhile
+    private boolean[] rebackfill;
+    // snapshots that must have committed before a partition is copied again
+    private long[] rebackfillAfterSnapshot;
+    private boolean snapshotting;
+    private long snapshotsTaken;
+    private long snapshotsCommitted;
+    private long partitionCapacity;
+    private long nextLagCheckNanos;
+    private Metric[] partitionLags;
+    private Metric journalLag;
+    private Metric journalFillPercent;
+    private Metric overflowWarnings;
+    private Metric eventsLost;
+    private Metric rebackfills;
+    private Metric partitionsBackfilled;
+    private Metric[] processedSequences;
+    private IMap<Integer, Long> progress;
+
+    private Traverser<Map.Entry<K, V>> traverser;
+    private int current;
+    private boolean tailing;
+    private long nextOffset;
+    private int tailCursor;
+    private Traverser<Map.Entry<BroadcastKey<Integer>, Long>> snapshotTraverser;
+
+    private BackfillThenTailP(String sourceMapName, String targetMapName,
+                              JournalOverflowPolicy overflowPolicy, double lagThreshold, int[] memberPartitions) {
+        this.sourceMapName = sourceMapName;
+        this.targetMapName = targetMapName;
+        this.overflowPolicy = overflowPolicy;
+        this.lagThreshold = lagThreshold;
+        this.memberPartitions = memberPartitions;
+    }
+
+    /**
+     * @param targetMapName  map the items are written to, required by
+     *                       {@link JournalOverflowPolicy#REBACKFILL} only
+     * @param lagThreshold   fraction of a partition's journal capacity that its lag may reach
+     *                       before the policy applies
+     */
+    public static ProcessorMetaSupplier metaSupplier(String sourceMapName, String targetMapName,
+                                                     JournalOverflowPolicy overflowPolicy, double lagThreshold) {
+        if (overflowPolicy == JournalOverflowPolicy.REBACKFILL && targetMapName == null) {
+            throw new IllegalArgumentException("REBACKFILL needs the target map name");
+        }
+        return new MetaSupplier(sourceMapName, targetMapName, overflowPolicy, lagThreshold);
+    }
+
+    /** Map of the newest journal sequence emitted for each partition of {@code sourceMapName}. */
+    public static String progressMapName(String sourceMapName) {
+        return "migration_tail_progress_" + sourceMapName;
+    }
+
+    @Override
+    public boolean isCooperative() {
+        // map iteration and journal reads are blocking calls
+        return false;
+    }
+
+    @Override
+    public void init(Context context) {
+        HazelcastInstance hz = context.hazelcastInstance();
+        this.logger = context.logger();
+        // member-side proxy: gives access to per-partition iteration and to the journal
+        this.map = (MapProxyImpl<K, V>) hz.<K, V>getMap(sourceMapName);
+        this.journal = map;
+        if (targetMapName != null) {
+            this.target = (MapProxyImpl<K, Object>) hz.<K, Object>getMap(targetMapName);
+        }
+        this.progress = hz.getMap(progressMapName(sourceMapName));
+
+        int partitionCount = hz.getPartitionService().getPartitions().size();
+        this.partitions = IntStream.range(0, memberPartitions.length)
+                                   .filter(i -> i % context.localParallelism() == context.localProcessorIndex())
+                                   .map(i -> memberPartitions[i])
+                                   .toArray();
+        this.offsets = new long[partitions.length];
+        this.tailReads = newTailReads(partitions.length);
+        this.backfilled = new boolean[partitions.length];
+        this.rebackfill = new boolean[partitions.length];
+        this.rebackfillAfterSnapshot = new long[partitions.length];
+        this.snapshotting = context.processingGuarantee() != ProcessingGuarantee.NONE;
+        // the journal capacity is shared equally by the partitions
+        int capacity = hz.getConfig().findMapConfig(sourceMapName).getEventJournalConfig().getCapacity();
+        this.partitionCapacity = Math.max(1, capacity / partitionCount);
+
+        this.partitionLags = new Metric[partitions.length];
+        this.processedSequences = new Metric[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            partitionLags[i] = Metrics.metric(MigrationMetrics.JOURNAL_LAG_PARTITION_PREFIX + partitions[i], Unit.COUNT);
+            processedSequences[i] = Metrics.metric(MigrationMetrics.JOURNAL_SEQUENCE_PARTITION_PREFIX + partitions[i],
+                    Unit.COUNT);
+        }
+        this.journalLag = Metrics.metric(MigrationMetrics.JOURNAL_LAG, Unit.COUNT);
+        this.journalFillPercent = Metrics.metric(MigrationMetrics.JOURNAL_FILL_PERCENT, Unit.PERCENT);
+        this.overflowWarnings = Metrics.metric(MigrationMetrics.JOURNAL_OVERFLOW_WARNINGS, Unit.COUNT);
+        this.eventsLost = Metrics.metric(MigrationMetrics.JOURNAL_EVENTS_LOST, Unit.COUNT);
+        this.rebackfills = Metrics.metric(MigrationMetrics.REBACKFILLS, Unit.COUNT);
+        Metrics.metric(MigrationMetrics.PARTITIONS_TOTAL, Unit.COUNT).set(partitions.length);
+        this.partitionsBackfilled = Metrics.metric(MigrationMetrics.PARTITIONS_COMPLETED, Unit.COUNT);
+    }
+
+    @Override
+    public boolean complete() {
+        if (traverser != null) {
+            if (!emitFromTraverser(traverser)) {
+                return false;
+            }
+            traverser = null;
+            if (tailing) {
+                offsets[current] = nextOffset;
+            } else {
+                backfilled[current] = true;
+                rebackfill[current] = false;
+                updateBackfillProgress();
+            }
+            publishProcessed(current);
+        }
+        // only between batches: no partition is half emitted when the policy applies
+        checkLag();
+        int next = nextPartitionToBackfill();
+        if (next >= 0) {
+            startBackfill(next);
+        } else {
+            startTailRead();
+        }
+        // a streaming source never completes
+        return false;
+    }
+
+    /** Publishes the newest journal sequence of the partition that has been emitted: the one before its offset. */
+    private void publishProcessed(int i) {
+        long sequence = offsets[i] - 1;
+        processedSequences[i].set(sequence);
+        // the sets of a partition are sent in order by this processor's thread and applied in order
+        progress.setAsync(partitions[i], sequence);
+    }
+
+    private int nextPartitionToBackfill() {
+        for (int i = 0; i < partitions.length; i++) {
+            if (!backfilled[i] && rebackfillAfterSnapshot[i] <= snapshotsCommitted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void updateBackfillProgress() {
+        int done = 0;
+        for (boolean b : backfilled) {
+            if (b) {
+                done++;
+            }
+        }
+        partitionsBackfilled.set(done);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> CompletableFuture<ReadResultSet<Map.Entry<K, V>>>[] newTailReads(int length) {
+        return new CompletableFuture[length];
+    }
+
+    private void startBackfill(int i) {
+        // a read still outstanding from before the partition had to be copied again is stale
+        tailReads[i] = null;
+        Set<K> changed;
+        do {
+            // taken before the partition is read: nothing written from now on can be missed. Keys
+            // changed from now on are still copied, their journal events are applied afterwards
+            offsets[i] = newestSequence(i) + 1;
+            changed = changedKeys(i);
+        } while (changed == null);
+        Set<K> excluded = changed;
+        Iterator<Map.Entry<K, V>> entries = map.iterator(FETCH_SIZE, partitions[i], true);
+        Traverser<Map.Entry<K, V>> copy = Traversers.traverseIterator(entries)
+                                                    .filter(e -> !excluded.contains(e.getKey()))
+                                                    .map(e -> Util.entry(e.getKey(), e.getValue()));
+        current = i;
+        tailing = false;
+        if (rebackfill[i]) {
+            // removals of keys deleted in the lost events come first, then the copy
+            Iterator<K> stale = staleTargetKeys(i).iterator();
+            traverser = () -> stale.hasNext() ? Util.entry(stale.next(), null) : copy.next();
+        } else {
+            traverser = copy;
+        }
+    }
+
+    /**
+     * Keys with journal events past the recorded offset, without consuming them, or null if
+     * the partition has to be started over.
+     */
+    private Set<K> changedKeys(int i) {
+        FunctionEx<EventJournalMapEvent<K, V>, K> toKey = EventJournalMapEvent::getKey;
+        Set<K> keys = new HashSet<>();
+        long sequence = offsets[i];
+        ReadResultSet<K> batch;
+        do {
+            batch = readJournal(i, sequence, toKey);
+            if (batch == null) {
+                return null;
+            }
+            batch.forEach(keys::add);
+            sequence = batch.getNextSequenceToReadFrom();
+        } while (batch.readCount() > 0);
+        return keys;
+    }
+
+    /** Keys of the partition that the target still holds and the source no longer does. */
+    private Set<K> staleTargetKeys(int i) {
+        Set<K> sourceKeys = new HashSet<>();
+        map.iterator(FETCH_SIZE, partitions[i], false).forEachRemaining(e -> sourceKeys.add(e.getKey()));
+        Set<K> stale = new HashSet<>();
+        target.iterator(FETCH_SIZE, partitions[i], false).forEachRemaining(e -> {
+            if (!sourceKeys.contains(e.getKey())) {
+                stale.add(e.getKey());
+            }
+        });
+        return stale;
+    }
+
+    private long newestSequence(int i) {
+        return journal.subscribeToEventJournal(partitions[i])
+                      .toCompletableFuture().join()
+                      .getNewestSequence();
+    }
+
+    private void checkLag() {
+        long now = System.nanoTime();
+        if (now < nextLagCheckNanos) {
+            return;
+        }
+        nextLagCheckNanos = now + LAG_CHECK_INTERVAL_NANOS;
+        // all partitions are asked at once rather than one after the other
+        List<CompletableFuture<EventJournalInitialSubscriberState>> heads = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            heads.add(backfilled[i] ? journal.subscribeToEventJournal(partitions[i]).toCompletableFuture() : null);
+        }
+        long maxLag = 0;
+        for (int i = 0; i < partitions.length; i++) {
+            // partitions not copied yet take their offset when the copy starts: they have no lag
+            if (!backfilled[i]) {
+                partitionLags[i].set(0);
+                continue;
+            }
+            long lag = heads.get(i).join().getNewestSequence() + 1 - offsets[i];
+            partitionLags[i].set(lag);
+            maxLag = Math.max(maxLag, lag);
+            if (lag > lagThreshold * partitionCapacity) {
+                onOverflow(i, lag + " events behind, " + (lag * 100 / partitionCapacity) + "% of its capacity");
+            }
+        }
+        journalLag.set(maxLag);
+        journalFillPercent.set(maxLag * 100 / partitionCapacity);
+    }
+
+    private void onOverflow(int i, String state) {
+        switch (overflowPolicy) {
+            case FAIL -> throw new JetException("Event journal of " + sourceMapName + " in partition "
+                    + partitions[i] + " is " + state);
+            case ALERT -> {
+                overflowWarnings.increment();
+                logger.warning("Event journal of " + sourceMapName + " in partition " + partitions[i] + " is " + state);
+            }
+            case REBACKFILL -> startOver(i, state);
+        }
+    }
+
+    private void startOver(int i, String state) {
+        rebackfills.increment();
+        logger.warning("Copying partition " + partitions[i] + " of " + sourceMapName + " again, its event journal is "
+                + state);
+        backfilled[i] = false;
+        tailReads[i] = null;
+        rebackfill[i] = true;
+        // the items already emitted for the partition are written once a later snapshot commits
+        rebackfillAfterSnapshot[i] = snapshotting ? snapshotsTaken + 1 : 0;
+        updateBackfillProgress();
+    }
+
+    /**
+     * Keeps a read outstanding on the journal of every copied partition, each completing as
+     * soon as the partition has an event, and starts emitting the first batch that has
+     * arrived, going round the partitions. The reads wait on the members, so an event is
+     * picked up as soon as it is written rather than when its partition's turn comes.
+     */
+    private void startTailRead() {
+        if (partitions.length == 0) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+            return;
+        }
+        for (int n = 0; n < partitions.length; n++) {
+            int i = tailCursor;
+            tailCursor = (tailCursor + 1) % partitions.length;
+            // nothing to read from a partition waiting to be copied again
+            if (!backfilled[i]) {
+                continue;
+            }
+            if (tailReads[i] == null) {
+                tailReads[i] = journal.readFromEventJournal(offsets[i], 1, MAX_JOURNAL_BATCH, partitions[i],
+                        PUT_OR_REMOVE, Util.<K, V>mapEventToEntry()).toCompletableFuture();
+                continue;
+            }
+            if (!tailReads[i].isDone()) {
+                continue;
+            }
+            ReadResultSet<Map.Entry<K, V>> batch = awaitRead(i, offsets[i], tailReads[i], Util.mapEventToEntry());
+            tailReads[i] = null;
+            // null if the partition has to be copied again; an empty batch still moves the offset past filtered events
+            if (batch != null && batch.readCount() > 0) {
+                current = i;
+                tailing = true;
+                nextOffset = batch.getNextSequenceToReadFrom();
+                traverser = Traversers.traverseIterable(batch);
+                return;
+            }
+        }
+        LockSupport.parkNanos(TAIL_POLL_NANOS);
+    }
+
+    /** Reads a batch from the journal, or returns null if events were lost and the partition is copied again. */
+    private <T> ReadResultSet<T> readJournal(int i, long sequence,
+                                             FunctionEx<EventJournalMapEvent<K, V>, T> projection) {
+        return awaitRead(i, sequence,
+                journal.readFromEventJournal(sequence, 0, MAX_JOURNAL_BATCH, partitions[i], PUT_OR_REMOVE, projection)
+                       .toCompletableFuture(),
+                projection);
+    }
+
+    /** Waits for a read of the journal from {@code sequence}, handling lost events as {@link #readJournal} does. */
+    private <T> ReadResultSet<T> awaitRead(int i, long sequence, CompletableFuture<ReadResultSet<T>> read,
+                                           FunctionEx<EventJournalMapEvent<K, V>, T> projection) {
+        try {
+            return read.join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof StaleSequenceException stale)) {
+                throw e;
+            }
+            long lost = stale.getHeadSeq() - sequence;
+            String state = "overflowed: " + lost + " events from sequence " + sequence + " are lost";
+            switch (overflowPolicy) {
+                case FAIL -> throw new JetException("Event journal of " + sourceMapName + " in partition "
+                        + partitions[i] + " " + state, stale);
+                case ALERT -> {
+                    eventsLost.increment(lost);
+                    logger.severe("Event journal of " + sourceMapName + " in partition " + partitions[i] + " " + state
+                            + ", skipping them");
+                    return readJournal(i, stale.getHeadSeq(), projection);
+                }
+                default -> {
+                    startOver(i, state);
+                    return null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        if (snapshotTraverser == null) {
+            // a partition is only recorded once copied: a restart copies the others again
+            List<Map.Entry<BroadcastKey<Integer>, Long>> state = new ArrayList<>();
+            for (int i = 0; i < partitions.length; i++) {
+                if (backfilled[i]) {
+                    state.add(Util.entry(broadcastKey(partitions[i]), offsets[i]));
+                } else if (rebackfill[i]) {
+                    state.add(Util.entry(broadcastKey(partitions[i]), REBACKFILL_PENDING));
+                }
+            }
+            snapshotTraverser = Traversers.traverseIterable(state)
+                                          .onFirstNull(() -> snapshotTraverser = null);
+        }
+        if (!emitFromTraverserToSnapshot(snapshotTraverser)) {
+            return false;
+        }
+        snapshotsTaken++;
+        return true;
+    }
+
+    @Override
+    public boolean snapshotCommitFinish(boolean success) {
+        // every processor has saved the snapshot: the sink has written what was emitted before it
+        if (success) {
+            snapshotsCommitted = snapshotsTaken;
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void restoreFromSnapshot(Object key, Object value) {
+        // offsets are broadcast to all processors, each keeps those of its own partitions
+        int partitionId = ((BroadcastKey<Integer>) key).key();
+        for (int i = 0; i < partitions.length; i++) {
+            if (partitions[i] != partitionId) {
+                continue;
+            }
+            long offset = (Long) value;
+            if (offset == REBACKFILL_PENDING) {
+                rebackfill[i] = true;
+            } else {
+                offsets[i] = offset;
+                backfilled[i] = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean finishSnapshotRestore() {
+        updateBackfillProgress();
+        return true;
+    }
+
+    /**
+     * Gives each member the partitions it owns, as the built-in journal source does, so the
+     * copy and the journal reads are local as long as the partitions don't migrate.
+     */
+    private static final class MetaSupplier implements ProcessorMetaSupplier {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String sourceMapName;
+        private final String targetMapName;
+        private final JournalOverflowPolicy overflowPolicy;
+        private final double lagThreshold;
+        private transient Map<Address, int[]> partitionAssignment;
+
+        MetaSupplier(String sourceMapName, String targetMapName, JournalOverflowPolicy overflowPolicy,
+                     double lagThreshold) {
+            this.sourceMapName = sourceMapName;
+            this.targetMapName = targetMapName;
+            this.overflowPolicy = overflowPolicy;
+            this.lagThreshold = lagThreshold;
+        }
+
+        @Override
+        public int preferredLocalParallelism() {
+            return 2;
+        }
+
+        @Override
+        public void init(Context context) {
+            this.partitionAssignment = context.partitionAssignment();
+        }
+
+        @Override
+        public Function<? super Address, ? extends ProcessorSupplier> get(List<Address> addresses) {
+            return address -> {
+                int[] memberPartitions = partitionAssignment.getOrDefault(address, new int[0]);
+                return ProcessorSupplier.of(() -> new BackfillThenTailP<>(sourceMapName, targetMapName,
+                        overflowPolicy, lagThreshold, memberPartitions));
+            };
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.metrics.Metric;
+import com.hazelcast.jet.core.metrics.Metrics;
+import com.hazelcast.jet.core.metrics.Unit;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.partition.PartitionService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Processor for upserts and deletes: map entries, a null value removing the key.
+ * <p>
+ * Entries are grouped by partition and each group is written with a single asynchronous
+ * {@link IMap#submitToKeys} call, so the cooperative thread never waits for a round trip
+ * and neither old nor removed values are sent back. A group keeps the last value of each
+ * key and a partition has at most one group in flight, so the writes of a key are applied
+ * in the order the processor receives them: use it in a pipeline that preserves order.
+ * <p>
+ * At most {@code maxInFlight} groups are outstanding. Once that limit is reached, or a
+ * partition's next group is full while the previous one is still in flight, the processor
+ * stops accepting items, which backpressures the upstream stages instead of piling up work
+ * in memory.
+ */
+public final class BatchedMapWriteP extends AbstractProcessor {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    private final String targetMapName;
+    private final int maxBatchSize;
+    private final int maxInFlight;
+    private final Map<Integer, HashMap<Object, Object>> pendingByPartition = new HashMap<>();
+    private final Set<Integer> partitionsInFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private transient IMap<Object, Object> map;
+    private transient PartitionService partitionService;
+    private transient Metric upserts;
+    private transient Metric deletes;
+
+    private BatchedMapWriteP(String targetMapName, int maxBatchSize, int maxInFlight) {
+        this.targetMapName = targetMapName;
+        this.maxBatchSize = maxBatchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public static ProcessorMetaSupplier metaSupplier(String targetMapName) {
+        return metaSupplier(targetMapName, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public static ProcessorMetaSupplier metaSupplier(String targetMapName, int maxBatchSize, int maxInFlight) {
+        return ProcessorMetaSupplier.of(
+                ProcessorSupplier.of(() -> new BatchedMapWriteP(targetMapName, maxBatchSize, maxInFlight))
+        );
+    }
+
+    @Override
+    public void init(Context context) {
+        HazelcastInstance hz = context.hazelcastInstance();
+        this.map = hz.getMap(targetMapName);
+        this.partitionService = hz.getPartitionService();
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, Object item) {
+        checkFailure();
+        if (deletes == null) {
+            // cooperative processors are initialized without a processor context: the metrics can
+            // only be obtained on the processor thread. They are updated from the completion
+            // callbacks, hence the thread-safe variant
+            upserts = Metrics.threadSafeMetric(MigrationMetrics.UPSERTS, Unit.COUNT);
+            deletes = Metrics.threadSafeMetric(MigrationMetrics.DELETES, Unit.COUNT);
+        }
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+        Object key = entry.getKey();
+        int partitionId = partitionService.getPartition(key).getPartitionId();
+        HashMap<Object, Object> batch = pendingByPartition.get(partitionId);
+        if (batch != null && batch.size() >= maxBatchSize && !batch.containsKey(key)) {
+            if (!trySubmit(partitionId, batch)) {
+                // the partition's previous group, or too many groups, in flight: leave the item in the inbox
+                return false;
+            }
+            batch = null;
+        }
+        if (batch == null) {
+            batch = new HashMap<>();
+            pendingByPartition.put(partitionId, batch);
+        }
+        // a later write of the key replaces the earlier one
+        batch.put(key, entry.getValue());
+        return true;
+    }
+
+    @Override
+    public boolean tryProcess() {
+        // called when the inbox is empty: ship partial groups instead of waiting for them to fill up
+        checkFailure();
+        flush();
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        return drain();
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        // a snapshot must not complete while writes it covers are still in flight
+        return drain();
+    }
+
+    private boolean drain() {
+        checkFailure();
+        return flush() && partitionsInFlight.isEmpty();
+    }
+
+    /** Submits every pending group it can, returning whether none is left. */
+    private boolean flush() {
+        boolean flushed = true;
+        for (Integer partitionId : new ArrayList<>(pendingByPartition.keySet())) {
+            flushed &= trySubmit(partitionId, pendingByPartition.get(partitionId));
+        }
+        return flushed;
+    }
+
+    private boolean trySubmit(int partitionId, HashMap<Object, Object> values) {
+        if (partitionsInFlight.size() >= maxInFlight || !partitionsInFlight.add(partitionId)) {
+            return false;
+        }
+        pendingByPartition.remove(partitionId);
+        int removals = 0;
+        for (Object value : values.values()) {
+            if (value == null) {
+                removals++;
+            }
+        }
+        int upserted = values.size() - removals;
+        int removed = removals;
+        map.submitToKeys(new HashSet<>(values.keySet()), new WriteEntryProcessor(values))
+           .whenComplete((r, t) -> {
+               if (t != null) {
+                   firstFailure.compareAndSet(null, t);
+               } else {
+                   upserts.increment(upserted);
+                   deletes.increment(removed);
+               }
+               partitionsInFlight.remove(partitionId);
+           });
+        return true;
+    }
+
+    private void checkFailure() {
+        Throwable t = firstFailure.get();
+        if (t != null) {
+            throw new JetException("Failed to write entries to " + targetMapName, t);
+        }
+    }
+
+    /**
+     * Sets each entry to its value in the group, removing it for a null value, without reading
+     * or returning the previous one. The values are written with the cluster's serializers, so
+     * Compact records need no Java serialization.
+     */
+    private static final class WriteEntryProcessor implements EntryProcessor<Object, Object, Object>, DataSerializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private HashMap<Object, Object> values;
+
+        WriteEntryProcessor() {
+            // for deserialization
+        }
+
+        WriteEntryProcessor(HashMap<Object, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object process(Map.Entry<Object, Object> entry) {
+            entry.setValue(values.get(entry.getKey()));
+            return null;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeInt(values.size());
+            for (Map.Entry<Object, Object> e : values.entrySet()) {
+                out.writeObject(e.getKey());
+                out.writeObject(e.getValue());
+            }
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            int size = in.readInt();
+            values = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                values.put(in.readObject(), in.readObject());
+            }
+        }
+    }
+}
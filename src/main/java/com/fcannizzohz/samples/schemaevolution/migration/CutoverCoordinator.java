@@ -0,0 +1,220 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.function.FunctionEx;
+import com.hazelcast.function.PredicateEx;
+import com.hazelcast.internal.journal.EventJournalInitialSubscriberState;
+import com.hazelcast.internal.journal.EventJournalReader;
+import com.hazelcast.map.EventJournalMapEvent;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.MapInterceptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Switches the writers of a source map over to its migration target, while a tail pipeline
+ * keeps the target up to date, without losing or reordering the writes in flight.
+ * <p>
+ * A cutover fences the source, so that every write to it fails with an
+ * {@link IllegalStateException}, then waits until the tail has applied the journal up to the
+ * fence, and finally publishes the routing flag in the {@value #ROUTES} map. A
+ * {@link CutoverRouter} retries the writes rejected by the fence until it sees the flag, then
+ * sends them to the target. Writers are unavailable from the fence to the flag: the time it
+ * takes the tail to catch up, which {@link CutoverReport#unavailable()} measures.
+ * <p>
+ * At the fence the coordinator records the newest journal sequence of every partition. The
+ * tail has caught up once it has emitted every partition up to that sequence, as reported in
+ * the {@link BackfillThenTailP#progressMapName progress map} of a
+ * {@link V2toV3PipelineFactory#createBackfillThenTailPipeline() backfill-then-tail} pipeline,
+ * and the target holds the converted source value, or nothing if the source has none, for the
+ * key of each partition's newest event. The tail applies a partition's events in journal
+ * order, so that last write landing means the ones before it have landed too.
+ * <p>
+ * The fence is never removed after a successful cutover: writes to the source through the
+ * map API keep failing, and only a {@link CutoverRouter} sends them on to the target. It only
+ * covers the map API: entry processors and Jet sinks writing to the source are not stopped,
+ * before or after the cutover.
+ */
+public final class CutoverCoordinator<K, S, T> {
+
+    /** Routing flags: source map name to the name of the map that replaced it. */
+    public static final String ROUTES = "migration_routes";
+
+    static final String FENCED = "map is fenced for cutover";
+
+    private static final long DRAIN_POLL_NANOS = 200_000;
+
+    private final HazelcastInstance hz;
+    private final IMap<K, S> source;
+    private final IMap<K, T> target;
+    private final FunctionEx<S, T> convert;
+
+    public CutoverCoordinator(HazelcastInstance hz, String sourceMapName, String targetMapName, FunctionEx<S, T> convert) {
+        this.hz = hz;
+        this.source = hz.getMap(sourceMapName);
+        this.target = hz.getMap(targetMapName);
+        this.convert = convert;
+    }
+
+    /** Cutover from {@code orders} to {@code orders_v3}, converting as the migration pipelines do. */
+    public static CutoverCoordinator<Long, OrderV2, OrderV3> forOrders(HazelcastInstance hz) {
+        return new CutoverCoordinator<>(hz, "orders", "orders_v3", V2toV3PipelineFactory::toOrderV3);
+    }
+
+    /**
+     * Fences the source, waits for the tail to drain the journal up to the fence and publishes
+     * the routing flag. The source stays fenced afterwards, and the fence is never removed: it
+     * rejects writes made through the map API only, not those of entry processors or Jet sinks.
+     *
+     * @throws TimeoutException if the tail hasn't caught up within {@code drainTimeout}; the
+     *                          fence is lifted and writers carry on with the source
+     */
+    public CutoverReport cutover(Duration drainTimeout) throws TimeoutException {
+        long start = System.nanoTime();
+        String fenceId = source.addInterceptor(new WriteFence());
+        long fenced = System.nanoTime();
+
+        int keysChecked;
+        try {
+            keysChecked = awaitDrain(fenced + drainTimeout.toNanos(), drainTimeout);
+        } catch (TimeoutException | RuntimeException e) {
+            source.removeInterceptor(fenceId);
+            throw e;
+        }
+        long drained = System.nanoTime();
+
+        hz.<String, String>getMap(ROUTES).set(source.getName(), target.getName());
+        long flipped = System.nanoTime();
+        return new CutoverReport(Duration.ofNanos(fenced - start), Duration.ofNanos(drained - fenced),
+                Duration.ofNanos(flipped - drained), keysChecked);
+    }
+
+    /**
+     * Waits until the tail has emitted every partition's events up to the fence and the target
+     * reflects the newest one, returning the number of keys compared.
+     */
+    private int awaitDrain(long deadlineNanos, Duration drainTimeout) throws TimeoutException {
+        Map<Integer, JournalHead<K>> heads = journalHeads();
+        IMap<Integer, Long> progress = hz.getMap(BackfillThenTailP.progressMapName(source.getName()));
+        // each poll asks only for the partitions the tail has not reached yet
+        Set<Integer> pending = new HashSet<>(heads.keySet());
+        while (true) {
+            Map<Integer, Long> processed = progress.getAll(pending);
+            pending.removeIf(partitionId -> {
+                Long sequence = processed.get(partitionId);
+                return sequence != null && sequence >= heads.get(partitionId).sequence();
+            });
+            if (pending.isEmpty()) {
+                break;
+            }
+            parkUntil(deadlineNanos, drainTimeout);
+        }
+        Set<K> keys = new HashSet<>();
+        heads.values().forEach(head -> keys.add(head.key()));
+        // nothing changes the source any more: its values are the final ones
+        Map<K, T> expected = new HashMap<>();
+        source.getAll(keys).forEach((key, value) -> expected.put(key, convert.apply(value)));
+        Set<K> unmatched = new HashSet<>(keys);
+        while (true) {
+            // a key removed from the source is matched once it is gone from the target too
+            Map<K, T> actual = target.getAll(unmatched);
+            unmatched.removeIf(key -> Objects.equals(actual.get(key), expected.get(key)));
+            if (unmatched.isEmpty()) {
+                break;
+            }
+            parkUntil(deadlineNanos, drainTimeout);
+        }
+        return keys.size();
+    }
+
+    private void parkUntil(long deadlineNanos, Duration drainTimeout) throws TimeoutException {
+        if (System.nanoTime() - deadlineNanos > 0) {
+            throw new TimeoutException("tail did not reach the fence of " + source.getName()
+                    + " within " + drainTimeout.toMillis() + " ms");
+        }
+        LockSupport.parkNanos(DRAIN_POLL_NANOS);
+    }
+
+    /**
+     * Sequence and key of the newest journal event of every partition that has one, by
+     * partition id. The journal is read on the partition threads, so a write that got past the
+     * fence while it was being installed has already added its event.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Integer, JournalHead<K>> journalHeads() {
+        EventJournalReader<EventJournalMapEvent<K, S>> journal = (EventJournalReader<EventJournalMapEvent<K, S>>) source;
+        FunctionEx<EventJournalMapEvent<K, S>, K> key = EventJournalMapEvent::getKey;
+        int partitions = hz.getPartitionService().getPartitions().size();
+        List<CompletableFuture<JournalHead<K>>> reads = new ArrayList<>(partitions);
+        for (int partitionId = 0; partitionId < partitions; partitionId++) {
+            int p = partitionId;
+            reads.add(journal.subscribeToEventJournal(p).toCompletableFuture()
+                    .<JournalHead<K>>thenCompose((EventJournalInitialSubscriberState state) ->
+                            state.getNewestSequence() < state.getOldestSequence()
+                                    // no event in this partition
+                                    ? CompletableFuture.completedFuture(null)
+                                    : journal.readFromEventJournal(state.getNewestSequence(), 0, 1, p,
+                                                    PredicateEx.alwaysTrue(), key)
+                                             .toCompletableFuture()
+                                             .thenApply(events -> new JournalHead<>(state.getNewestSequence(),
+                                                     events.get(0)))));
+        }
+        Map<Integer, JournalHead<K>> heads = new HashMap<>();
+        for (int partitionId = 0; partitionId < partitions; partitionId++) {
+            JournalHead<K> head = reads.get(partitionId).join();
+            if (head != null) {
+                heads.put(partitionId, head);
+            }
+        }
+        return heads;
+    }
+
+    /** Newest journal event of a partition at the fence. */
+    private record JournalHead<K>(long sequence, K key) {
+    }
+
+    /** Rejects every write to the map it is registered on. */
+    private static final class WriteFence implements MapInterceptor {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Object interceptGet(Object value) {
+            return null;
+        }
+
+        @Override
+        public void afterGet(Object value) {
+        }
+
+        @Override
+        public Object interceptPut(Object oldValue, Object newValue) {
+            throw new IllegalStateException(FENCED);
+        }
+
+        @Override
+        public void afterPut(Object value) {
+        }
+
+        @Override
+        public Object interceptRemove(Object removedValue) {
+            throw new IllegalStateException(FENCED);
+        }
+
+        @Override
+        public void afterRemove(Object oldValue) {
+        }
+    }
+}
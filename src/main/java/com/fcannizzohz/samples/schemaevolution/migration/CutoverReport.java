@@ -0,0 +1,29 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import java.time.Duration;
+
+/**
+ * Timings of a {@link CutoverCoordinator#cutover}, during which the source map rejected writes.
+ *
+ * @param fence       time to install the write fence on every member
+ * @param drain       time from the fence until the tail pipeline had applied the journal up to it
+ * @param flip        time to publish the routing flag
+ * @param keysChecked keys of the last journal event of each partition compared between the maps
+ */
+public record CutoverReport(Duration fence, Duration drain, Duration flip, int keysChecked) {
+
+    /** How long writers could not write anywhere: from the fence until the flag was published. */
+    public Duration unavailable() {
+        return fence.plus(drain).plus(flip);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("unavailable %.2f ms (fence %.2f ms, drain %.2f ms, flip %.2f ms), %d keys checked",
+                millis(unavailable()), millis(fence), millis(drain), millis(flip), keysChecked);
+    }
+
+    private static double millis(Duration d) {
+        return d.toNanos() / 1_000_000.0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.function.FunctionEx;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Client-side view that writes to a source map until a {@link CutoverCoordinator} has cut it
+ * over, and to its target afterwards.
+ * <p>
+ * The routing flag is observed with an entry listener. Writes rejected by the cutover fence
+ * are retried until the flag is set, reading it directly so as not to wait for the event,
+ * and then go to the target: a write is never lost, and never reaches the target before the
+ * tail pipeline has applied the writes that were acknowledged by the source.
+ */
+public final class CutoverRouter<K, S, T> implements AutoCloseable {
+
+    private static final long RETRY_NANOS = 200_000;
+
+    private final String sourceMapName;
+    private final IMap<K, S> source;
+    private final IMap<K, T> target;
+    private final FunctionEx<S, T> convert;
+    private final IMap<String, String> routes;
+    private final UUID listenerId;
+    private final LongAccumulator maxBlockedNanos = new LongAccumulator(Math::max, 0);
+    private volatile boolean cutOver;
+
+    public CutoverRouter(HazelcastInstance hz, String sourceMapName, String targetMapName, FunctionEx<S, T> convert) {
+        this.sourceMapName = sourceMapName;
+        this.source = hz.getMap(sourceMapName);
+        this.target = hz.getMap(targetMapName);
+        this.convert = convert;
+        this.routes = hz.getMap(CutoverCoordinator.ROUTES);
+        this.listenerId = routes.addEntryListener((EntryAddedListener<String, String>) e -> cutOver = true,
+                sourceMapName, false);
+        // a flag set before the listener was registered raises no event
+        this.cutOver = routes.containsKey(sourceMapName);
+    }
+
+    /** Router of {@code orders} writers, converting as the migration pipelines do once cut over. */
+    public static CutoverRouter<Long, OrderV2, OrderV3> forOrders(HazelcastInstance hz) {
+        return new CutoverRouter<>(hz, "orders", "orders_v3", V2toV3PipelineFactory::toOrderV3);
+    }
+
+    public boolean isCutOver() {
+        return cutOver;
+    }
+
+    /** Longest time a write of this router waited on the cutover fence. */
+    public Duration maxBlocked() {
+        return Duration.ofNanos(maxBlockedNanos.get());
+    }
+
+    public T get(K key) {
+        if (cutOver) {
+            return target.get(key);
+        }
+        S value = source.get(key);
+        return value == null ? null : convert.apply(value);
+    }
+
+    public void set(K key, S value) {
+        write(() -> source.set(key, value), () -> target.set(key, convert.apply(value)));
+    }
+
+    public void delete(K key) {
+        write(() -> source.delete(key), () -> target.delete(key));
+    }
+
+    private void write(Runnable toSource, Runnable toTarget) {
+        long blockedSince = 0;
+        while (!cutOver) {
+            try {
+                toSource.run();
+                // the fence may have been lifted by a cutover that timed out
+                recordBlocked(blockedSince);
+                return;
+            } catch (IllegalStateException e) {
+                if (e.getMessage() == null || !e.getMessage().contains(CutoverCoordinator.FENCED)) {
+                    throw e;
+                }
+            }
+            if (blockedSince == 0) {
+                blockedSince = System.nanoTime();
+            }
+            if (routes.containsKey(sourceMapName)) {
+                cutOver = true;
+            } else {
+                LockSupport.parkNanos(RETRY_NANOS);
+            }
+        }
+        toTarget.run();
+        recordBlocked(blockedSince);
+    }
+
+    private void recordBlocked(long blockedSince) {
+        if (blockedSince != 0) {
+            maxBlockedNanos.accumulate(System.nanoTime() - blockedSince);
+        }
+    }
+
+    @Override
+    public void close() {
+        routes.removeEntryListener(listenerId);
+    }
+}
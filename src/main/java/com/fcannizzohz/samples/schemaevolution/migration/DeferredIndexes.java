@@ -0,0 +1,70 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.hazelcast.config.IndexConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.map.IMap;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Indexes of a migration target, built once the target has been bulk loaded instead of being
+ * maintained by every insert of the load.
+ * <p>
+ * {@link IMap#addIndex} returns once every partition has been indexed. Writes racing with the
+ * build, such as the tail pipeline's, are indexed too, and from then on the map maintains
+ * the indexes on every write. Indexes added at runtime are not part of the static
+ * configuration: declare them in the map config too before the cluster is next restarted.
+ */
+public final class DeferredIndexes {
+
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final String mapName;
+    private final List<IndexConfig> indexes;
+
+    public DeferredIndexes(String mapName, List<IndexConfig> indexes) {
+        this.mapName = mapName;
+        this.indexes = List.copyOf(indexes);
+    }
+
+    /** The indexes {@link OrderV3Serializer} declares, on {@code orders_v3}. */
+    public static DeferredIndexes forOrdersV3() {
+        return new DeferredIndexes("orders_v3", OrderV3Serializer.indexes());
+    }
+
+    /** Builds the indexes, returning once they are populated. Indexes that exist already are kept. */
+    public void build(HazelcastInstance hz) {
+        IMap<?, ?> map = hz.getMap(mapName);
+        indexes.forEach(map::addIndex);
+    }
+
+    /** Waits for a bulk job to complete, then builds the indexes. */
+    public void buildAfter(HazelcastInstance hz, Job bulkJob) {
+        bulkJob.join();
+        build(hz);
+    }
+
+    /**
+     * Builds the indexes once a backfill-then-tail job has copied every partition, and leaves
+     * the job running: the tail's writes keep the indexes up to date. Completes exceptionally
+     * if the job stops before its backfill is done.
+     */
+    public CompletableFuture<Void> buildAfterBackfill(HazelcastInstance hz, Job job) {
+        return CompletableFuture.runAsync(() -> {
+            while (!MigrationMetrics.isBackfilled(hz, job)) {
+                if (job.getStatus().isTerminal()) {
+                    throw new IllegalStateException("Job " + job.getName() + " ended with status "
+                            + job.getStatus() + " before its backfill completed");
+                }
+                LockSupport.parkNanos(MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS));
+            }
+            build(hz);
+        });
+    }
+}
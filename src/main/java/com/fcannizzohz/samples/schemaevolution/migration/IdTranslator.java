@@ -0,0 +1,16 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Translates a batch of ids, for {@link V2toV3PipelineFactory#createTranslatingBulkPipeline} and
+ * the overloads of the tail, backfill and re-keyed pipelines that take one.
+ * Implementations must not block: they are called from cooperative processors.
+ */
+@FunctionalInterface
+public interface IdTranslator {
+
+    /** The translations of {@code ids}, in the same order. */
+    CompletableFuture<List<Long>> translate(List<Long> ids);
+}
@@ -0,0 +1,25 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+/**
+ * What {@link BackfillThenTailP} does when a partition's journal lag nears the journal
+ * capacity, or when events were already overwritten before they could be read.
+ */
+public enum JournalOverflowPolicy {
+
+    /** Fail the job: a restart resumes from the last snapshot, nothing is silently skipped. */
+    FAIL,
+
+    /**
+     * Log a warning and count it in {@link MigrationMetrics#JOURNAL_OVERFLOW_WARNINGS}. Events
+     * that are lost anyway are skipped, logged and counted in
+     * {@link MigrationMetrics#JOURNAL_EVENTS_LOST}: the target diverges until it is repaired.
+     */
+    ALERT,
+
+    /**
+     * Copy the affected partition again: the journal is resumed from its head, the partition
+     * is re-read from the source map and target keys that are no longer in the source are
+     * removed. Only that partition is copied, counted in {@link MigrationMetrics#REBACKFILLS}.
+     */
+    REBACKFILL
+}
@@ -0,0 +1,42 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.function.FunctionEx;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.Sinks;
+import com.hazelcast.jet.pipeline.Sources;
+
+/**
+ * One map of a schema release for a {@link MigrationOrchestrator}: every entry of
+ * {@code sourceMap} is converted with {@code transform} and written to {@code targetMap} under
+ * the same key.
+ */
+public record MapMigration<K, S, T>(String sourceMap, String targetMap, FunctionEx<S, T> transform) {
+
+    /** {@code orders} to {@code orders_v3}, converting as the migration pipelines do. */
+    public static MapMigration<Long, OrderV2, OrderV3> orders() {
+        return new MapMigration<>("orders", "orders_v3", V2toV3PipelineFactory::toOrderV3);
+    }
+
+    /** Name of the migration's job, unique per source and target. */
+    public String name() {
+        return "migrate-" + sourceMap + "-to-" + targetMap;
+    }
+
+    /**
+     * Bulk copy paced by an {@link AdaptiveRateLimiter} watching the source map, as
+     * {@link V2toV3PipelineFactory#createThrottledBulkPipeline()} does for {@code orders}.
+     */
+    Pipeline pipeline() {
+        // the record itself isn't serializable: only the function goes to the members
+        FunctionEx<S, T> transform = this.transform;
+        Pipeline bulk = Pipeline.create();
+        bulk.readFrom(Sources.<K, S>map(sourceMap))
+            .mapUsingService(AdaptiveRateLimiter.serviceFactory(sourceMap), AdaptiveRateLimiter::pass)
+            .map(e -> Util.entry(e.getKey(), transform.apply(e.getValue())))
+            .map(MigrationMetrics::countUpsert)
+            .writeTo(Sinks.map(targetMap)); return bulk;
+    }
+}
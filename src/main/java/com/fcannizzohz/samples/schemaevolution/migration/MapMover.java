@@ -0,0 +1,100 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.jet.pipeline.ServiceFactories;
+import com.hazelcast.jet.pipeline.ServiceFactory;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Moves entries one at a time from a source map to a target map, so the two maps together
+ * never hold much more than the dataset.
+ * <p>
+ * The converted value is stored in the target only if the key is absent there, and the
+ * source entry is removed once that write is acknowledged, and only if it still holds the
+ * value that was converted. Concurrent writers are expected to go through a
+ * {@link MigratingIMap}: a key it has written to the target is never overwritten, and a key
+ * it has deleted meanwhile is removed from the target again instead of being resurrected.
+ */
+public final class MapMover<K, S, T> {
+
+    private final IMap<K, S> source;
+    private final IMap<K, T> target;
+
+    MapMover(IMap<K, S> source, IMap<K, T> target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    public static <K, S, T> ServiceFactory<?, MapMover<K, S, T>> serviceFactory(String sourceMapName,
+                                                                               String targetMapName) {
+        return ServiceFactories.sharedService(ctx -> new MapMover<>(
+                ctx.hazelcastInstance().<K, S>getMap(sourceMapName),
+                ctx.hazelcastInstance().<K, T>getMap(targetMapName)));
+    }
+
+    /**
+     * Moves the entry, which was read from the source as {@code expected}.
+     *
+     * @return a future completed with {@code true} if the source entry was removed, {@code false}
+     * if it had changed or was gone already
+     */
+    public CompletableFuture<Boolean> move(K key, S expected, T converted) {
+        return target.submitToKey(key, new CompareAndSet<K, T>(null, converted)).toCompletableFuture()
+                     .thenCompose(written -> source.submitToKey(key, new CompareAndSet<K, S>(expected, null))
+                             .thenCompose(removed -> written && !removed
+                                     // the source was deleted or rewritten after the read: undo the write
+                                     ? target.submitToKey(key, new CompareAndSet<K, T>(converted, null))
+                                             .thenApply(undone -> false)
+                                     : CompletableFuture.completedFuture(removed)));
+    }
+
+    /**
+     * Sets the entry to {@code update}, or removes it if null, only if it holds {@code expected} (null: absent).
+     * The values are written with the cluster's serializers, so Compact records need no Java serialization.
+     */
+    private static final class CompareAndSet<K, V> implements EntryProcessor<K, V, Boolean>, DataSerializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient V expected;
+        private transient V update;
+
+        CompareAndSet() {
+            // for deserialization
+        }
+
+        CompareAndSet(V expected, V update) {
+            this.expected = expected;
+            this.update = update;
+        }
+
+        @Override
+        public Boolean process(Map.Entry<K, V> entry) {
+            if (!Objects.equals(entry.getValue(), expected)) {
+                return false;
+            }
+            entry.setValue(update);
+            return true;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeObject(expected);
+            out.writeObject(update);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            expected = in.readObject();
+            update = in.readObject();
+        }
+    }
+}
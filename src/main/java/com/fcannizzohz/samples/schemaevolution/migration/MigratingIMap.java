@@ -0,0 +1,152 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.function.FunctionEx;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicates;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side view over a source map being migrated lazily into a target map, as an
+ * alternative to copying it with a bulk job.
+ * <p>
+ * Reads go to the target first. On a miss the source value is converted and returned, and
+ * written back to the target asynchronously, after which it is removed from the source: hot
+ * keys migrate on first access and the source shrinks as the target grows, so memory is never
+ * doubled. Writes only go to the target. A background sweeper, started with
+ * {@link #startSweeper}, migrates the keys nobody reads.
+ * <p>
+ * All writers of the two maps must go through this view while the migration runs. Write-backs
+ * and deletes of the same key are serialized with the target's key lock, so a write-back never
+ * resurrects a deleted entry nor overwrites a newer value.
+ */
+public final class MigratingIMap<K, S, T> implements AutoCloseable {
+
+    private static final int WRITE_BACK_QUEUE_CAPACITY = 10_000;
+
+    private final IMap<K, S> source;
+    private final IMap<K, T> target;
+    private final FunctionEx<S, T> convert;
+    // keys with a write-back queued, so a hot key is only written back once
+    private final Set<K> pendingWriteBacks = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor writeBacks;
+    private final ScheduledExecutorService sweeper;
+
+    public MigratingIMap(IMap<K, S> source, IMap<K, T> target, FunctionEx<S, T> convert) {
+        this.source = source;
+        this.target = target;
+        this.convert = convert;
+        this.writeBacks = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WRITE_BACK_QUEUE_CAPACITY));
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "migrating-imap-sweeper-" + target.getName());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /** View over {@code orders} migrating into {@code orders_v3}, converting as the migration pipelines do. */
+    public static MigratingIMap<Long, OrderV2, OrderV3> forOrders(HazelcastInstance hz) {
+        return new MigratingIMap<>(hz.getMap("orders"), hz.getMap("orders_v3"), V2toV3PipelineFactory::toOrderV3);
+    }
+
+    public T get(K key) {
+        T value = target.get(key);
+        if (value != null) {
+            return value;
+        }
+        S old = source.get(key);
+        if (old == null) {
+            // the entry may have been written back between the two reads
+            return target.get(key);
+        }
+        scheduleWriteBack(key);
+        return convert.apply(old);
+    }
+
+    public void set(K key, T value) {
+        target.set(key, value);
+        // the target now holds the latest value: a pending write-back of the old one is a no-op
+        source.delete(key);
+    }
+
+    public void delete(K key) {
+        target.lock(key);
+        try {
+            target.delete(key);
+            source.delete(key);
+        } finally {
+            target.unlock(key);
+        }
+    }
+
+    /** Starts migrating up to {@code batchSize} keys not yet migrated every {@code period}. */
+    public void startSweeper(int batchSize, long period, TimeUnit unit) {
+        sweeper.scheduleWithFixedDelay(() -> sweep(batchSize), period, period, unit);
+    }
+
+    /**
+     * Migrates up to {@code batchSize} keys still in the source.
+     *
+     * @return the number of keys found in the source
+     */
+    public int sweep(int batchSize) {
+        // migrated keys leave the source, so the first page always holds keys still to migrate
+        Set<K> keys = source.keySet(Predicates.pagingPredicate(batchSize));
+        keys.forEach(this::migrate);
+        return keys.size();
+    }
+
+    /** Whether every entry has been moved to the target. */
+    public boolean isMigrated() {
+        return source.isEmpty();
+    }
+
+    private void scheduleWriteBack(K key) {
+        if (!pendingWriteBacks.add(key)) {
+            return;
+        }
+        try {
+            writeBacks.execute(() -> {
+                pendingWriteBacks.remove(key);
+                migrate(key);
+            });
+        } catch (RejectedExecutionException e) {
+            // queue full or closed: the sweeper migrates the key later
+            pendingWriteBacks.remove(key);
+        }
+    }
+
+    private void migrate(K key) {
+        target.lock(key);
+        try {
+            // re-read under the lock: the key may have been written, deleted or migrated meanwhile
+            S old = source.get(key);
+            if (old == null) {
+                return;
+            }
+            // no-op if a concurrent set already stored a newer value
+            target.putIfAbsent(key, convert.apply(old));
+            source.remove(key, old);
+        } finally {
+            target.unlock(key);
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        writeBacks.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderDictionaries;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+
+/**
+ * Predicates selecting the {@code orders} to migrate, for
+ * {@link V2toV3PipelineFactory#createFilteredBulkPipeline} and
+ * {@link V2toV3PipelineFactory#createArchivePipeline}.
+ * <p>
+ * They are evaluated by the members inside the map scan, on the Compact fields of the stored
+ * records: entries that don't match are neither deserialized nor sent to the job. Combine them
+ * with {@link Predicates#and}. The status is matched in every encoding the serializers write:
+ * the plain {@code status} field, and with {@code StringEncoding.DICTIONARY} the
+ * {@code statusCode} of {@link OrderDictionaries#STATUSES} or, for a value the dictionary
+ * lacks, the {@code statusText}.
+ */
+public final class MigrationFilters {
+
+    public static final String ARCHIVED_STATUS = "archived";
+
+    private MigrationFilters() {
+    }
+
+    public static Predicate<Long, OrderV2> notArchived() {
+        return Predicates.not(statusIs(ARCHIVED_STATUS));
+    }
+
+    /** Orders whose status is {@code status}, whichever encoding it was written with. */
+    public static Predicate<Long, OrderV2> statusIs(String status) {
+        int code = OrderDictionaries.STATUSES.codeOf(status);
+        Predicate<Long, OrderV2> plain = Predicates.or(
+                Predicates.equal("status", status),
+                Predicates.equal("statusText", status));
+        // a value missing from the dictionary is only ever written as text
+        return code < 0 ? plain : Predicates.or(plain, Predicates.equal("statusCode", code));
+    }
+
+    public static Predicate<Long, OrderV2> idAbove(long id) {
+        return Predicates.greaterThan("id", id);
+    }
+}
@@ -0,0 +1,215 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.core.metrics.JobMetrics;
+import com.hazelcast.jet.core.metrics.Measurement;
+import com.hazelcast.jet.core.metrics.MetricNames;
+import com.hazelcast.jet.core.metrics.Metrics;
+import com.hazelcast.jet.core.metrics.Unit;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * User metrics published by the migration pipelines.
+ * <p>
+ * They are collected like any other Jet metric: read them with {@link Job#getMetrics()}
+ * (enable {@code JobConfig.setStoreMetricsAfterJobCompletion} to keep them once a bulk job
+ * has finished) or over JMX, where they appear under {@code com.hazelcast.jet} tagged with
+ * the job, vertex and processor they come from.
+ */
+public final class MigrationMetrics {
+
+    /** Records converted from V2 to V3. */
+    public static final String MAPPED = "migrationRecordsMapped";
+    /**
+     * Converted records written to {@code orders_v3}. The tail's batched sink counts them once the
+     * write is acknowledged, the other pipelines when they are handed to the sink.
+     */
+    public static final String UPSERTS = "migrationUpserts";
+    /**
+     * Keys removed from {@code orders_v3}. The tail's batched sink counts them once the removal
+     * is acknowledged, the other pipelines when they are handed to the sink.
+     */
+    public static final String DELETES = "migrationDeletes";
+
+    /** Entries the move pipeline removed from {@code orders} once their V3 value was stored. */
+    public static final String MOVED = "migrationMoved";
+    /**
+     * Entries the move pipeline left alone because {@code orders} changed or removed them after
+     * they were read; a {@link MigratingIMap} view migrates those still there.
+     */
+    public static final String MOVES_SKIPPED = "migrationMovesSkipped";
+
+    /** Ids the {@link AccountIdTranslator} found in its cache. */
+    public static final String ID_CACHE_HITS = "migrationIdCacheHits";
+    /** Ids the {@link AccountIdTranslator} had to look up. */
+    public static final String ID_CACHE_MISSES = "migrationIdCacheMisses";
+
+    /**
+     * Transform latency histogram: one counter per bucket, each counting the records whose
+     * V2 to V3 conversion took at most the bucket's upper bound (the last bucket is open-ended).
+     */
+    public static final String[] TRANSFORM_LATENCY_BUCKETS = {
+            "migrationTransformLatencyLe1us",
+            "migrationTransformLatencyLe10us",
+            "migrationTransformLatencyLe100us",
+            "migrationTransformLatencyLe1ms",
+            "migrationTransformLatencyLe10ms",
+            "migrationTransformLatencyGt10ms"
+    };
+    private static final long[] BUCKET_UPPER_BOUNDS_NANOS = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    /**
+     * End-to-end event-time lag of the tail pipeline, in milliseconds. The journal source
+     * stamps events with {@code withIngestionTimestamps()}, so the watermark latency Jet
+     * already reports for every vertex is exactly how far behind the source each stage is.
+     */
+    public static final String EVENT_TIME_LAG = MetricNames.LAST_FORWARDED_WM_LATENCY;
+
+    /** Partitions assigned to the resumable bulk source or to the backfill-then-tail source. */
+    public static final String PARTITIONS_TOTAL = "migrationPartitionsTotal";
+    /**
+     * Partitions the resumable bulk source or the backfill-then-tail source has finished
+     * copying, restored ones included.
+     */
+    public static final String PARTITIONS_COMPLETED = "migrationPartitionsCompleted";
+    /**
+     * Estimated milliseconds until the resumable bulk source finishes, extrapolated from the
+     * pace of the current run; -1 until the processor has finished its first partition.
+     */
+    public static final String REMAINING_MILLIS = "migrationRemainingMillis";
+
+    /** Largest journal lag, in events, among the partitions a backfill-then-tail processor follows. */
+    public static final String JOURNAL_LAG = "migrationJournalLag";
+    /** Journal lag of one partition, in events: the metric name is this prefix followed by the partition id. */
+    public static final String JOURNAL_LAG_PARTITION_PREFIX = "migrationJournalLagPartition";
+    /**
+     * Newest journal sequence of one partition whose event a backfill-then-tail processor has
+     * emitted: the metric name is this prefix followed by the partition id.
+     */
+    public static final String JOURNAL_SEQUENCE_PARTITION_PREFIX = "migrationJournalSequencePartition";
+    /** {@link #JOURNAL_LAG} as a percentage of a partition's share of the journal capacity. */
+    public static final String JOURNAL_FILL_PERCENT = "migrationJournalFillPercent";
+    /** Times a partition's lag crossed the threshold under {@link JournalOverflowPolicy#ALERT}. */
+    public static final String JOURNAL_OVERFLOW_WARNINGS = "migrationJournalOverflowWarnings";
+    /** Journal events overwritten before they were read, under {@link JournalOverflowPolicy#ALERT}. */
+    public static final String JOURNAL_EVENTS_LOST = "migrationJournalEventsLost";
+    /** Partitions copied again under {@link JournalOverflowPolicy#REBACKFILL}. */
+    public static final String REBACKFILLS = "migrationRebackfills";
+
+    private MigrationMetrics() {
+    }
+
+    static void recordMapped(long elapsedNanos) {
+        Metrics.metric(MAPPED, Unit.COUNT).increment();
+        Metrics.metric(TRANSFORM_LATENCY_BUCKETS[bucketOf(elapsedNanos)], Unit.COUNT).increment();
+    }
+
+    static <T> T countUpsert(T item) {
+        Metrics.metric(UPSERTS, Unit.COUNT).increment();
+        return item;
+    }
+
+    static <K, V> Map.Entry<K, V> countWrite(Map.Entry<K, V> entry) {
+        Metrics.metric(entry.getValue() == null ? DELETES : UPSERTS, Unit.COUNT).increment();
+        return entry;
+    }
+
+    static boolean countMove(boolean moved) {
+        Metrics.metric(moved ? MOVED : MOVES_SKIPPED, Unit.COUNT).increment();
+        return moved;
+    }
+
+    static void recordIdLookups(int hits, int misses) {
+        Metrics.metric(ID_CACHE_HITS, Unit.COUNT).increment(hits);
+        Metrics.metric(ID_CACHE_MISSES, Unit.COUNT).increment(misses);
+    }
+
+    static int bucketOf(long elapsedNanos) {
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_NANOS.length; i++) {
+            if (elapsedNanos <= BUCKET_UPPER_BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_NANOS.length;
+    }
+
+    /** Sum of a counter over all the vertices and processors of the job. */
+    public static long total(Job job, String metric) {
+        return job.getMetrics().get(metric).stream()
+                  .mapToLong(Measurement::value)
+                  .sum();
+    }
+
+    /** Worst event-time lag across the job's vertices, or -1 if no watermark has been forwarded yet. */
+    public static long eventTimeLagMillis(Job job) {
+        return job.getMetrics().get(EVENT_TIME_LAG).stream()
+                  .mapToLong(Measurement::value)
+                  .filter(v -> v >= 0)
+                  .max()
+                  .orElse(-1);
+    }
+
+    /**
+     * Progress of a job reading with {@link ResumableMapSourceP}. The estimate is the slowest
+     * processor's, and is unknown as long as any processor has none.
+     */
+    public static MigrationProgress progress(Job job) {
+        List<Measurement> remaining = job.getMetrics().get(REMAINING_MILLIS);
+        long remainingMillis = remaining.stream().anyMatch(m -> m.value() < 0)
+                ? -1
+                : remaining.stream().mapToLong(Measurement::value).max().orElse(-1);
+        return new MigrationProgress(total(job, PARTITIONS_COMPLETED), total(job, PARTITIONS_TOTAL), remainingMillis);
+    }
+
+    /**
+     * Whether a backfill-then-tail job has copied all the partitions of {@code hz}'s cluster and
+     * only follows the journal. Each member reports the partitions it owns, so the totals only
+     * cover the cluster once every member's metrics have been collected.
+     */
+    public static boolean isBackfilled(HazelcastInstance hz, Job job) {
+        int partitionCount = hz.getPartitionService().getPartitions().size();
+        return total(job, PARTITIONS_TOTAL) == partitionCount && total(job, PARTITIONS_COMPLETED) == partitionCount;
+    }
+
+    /** Share of the translated ids served from the cache, 0 if none was translated. */
+    public static double idCacheHitRate(Job job) {
+        long hits = total(job, ID_CACHE_HITS);
+        long lookups = hits + total(job, ID_CACHE_MISSES);
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /** Largest journal lag of the job, in events: size the journal capacity above its peak. */
+    public static long maxJournalLag(Job job) {
+        return job.getMetrics().get(JOURNAL_LAG).stream()
+                  .mapToLong(Measurement::value)
+                  .max()
+                  .orElse(0);
+    }
+
+    /** Latest journal lag of each partition of a backfill-then-tail job, keyed by partition id. */
+    public static Map<Integer, Long> journalLagByPartition(Job job) {
+        JobMetrics metrics = job.getMetrics();
+        Map<Integer, Long> lags = new TreeMap<>();
+        for (String name : metrics.metrics()) {
+            if (name.startsWith(JOURNAL_LAG_PARTITION_PREFIX)) {
+                int partitionId = Integer.parseInt(name.substring(JOURNAL_LAG_PARTITION_PREFIX.length()));
+                lags.put(partitionId, metrics.get(name).stream().mapToLong(Measurement::value).max().orElse(0));
+            }
+        }
+        return lags;
+    }
+
+    /** Transform latency histogram of the job, keyed by bucket metric name. */
+    public static Map<String, Long> transformLatencyHistogram(Job job) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (String bucket : TRANSFORM_LATENCY_BUCKETS) {
+            histogram.put(bucket, total(job, bucket));
+        }
+        return histogram;
+    }
+}
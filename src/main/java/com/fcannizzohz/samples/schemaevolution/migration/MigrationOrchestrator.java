@@ -0,0 +1,140 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JobConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs the map migrations of a schema release as Jet jobs, within one concurrency and one
+ * throughput budget for all of them.
+ * <p>
+ * Migrations are started smallest source map first, so most maps are done early and a large
+ * one doesn't hold the small ones back. At most {@code maxConcurrentJobs} run at once, and the
+ * records per second they migrate add up to {@code maxRecordsPerSecond} at most: each job is
+ * started with an even share of the budget the running jobs leave unallocated, which it
+ * keeps until it completes, and its {@link AdaptiveRateLimiter} may slow it down further.
+ * <p>
+ * The first migration to fail cancels the running ones and fails the release; the pending
+ * ones are not started.
+ */
+public final class MigrationOrchestrator {
+
+    /**
+     * Aggregate progress of a release.
+     *
+     * @param migrationsCompleted migrations whose job has completed
+     * @param migrationsTotal     migrations of the release
+     * @param recordsMigrated     records written to the targets so far
+     * @param recordsTotal        entries of the source maps when the release started
+     */
+    public record Progress(int migrationsCompleted, int migrationsTotal, long recordsMigrated, long recordsTotal) {
+
+        public double percentComplete() {
+            return recordsTotal == 0 ? 0 : Math.min(100.0, 100.0 * recordsMigrated / recordsTotal);
+        }
+    }
+
+    private final HazelcastInstance hz;
+    private final int maxConcurrentJobs;
+    private final long maxRecordsPerSecond;
+
+    private final Deque<MapMigration<?, ?, ?>> pending = new ArrayDeque<>();
+    // running jobs and the records per second each was given
+    private final Map<Job, Long> running = new LinkedHashMap<>();
+    private final List<Job> jobs = new ArrayList<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private boolean started;
+    private int migrationsTotal;
+    private int migrationsCompleted;
+    private long recordsTotal;
+    private long recordsOfCompletedJobs;
+
+    public MigrationOrchestrator(HazelcastInstance hz, int maxConcurrentJobs, long maxRecordsPerSecond) {
+        this.hz = hz;
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.maxRecordsPerSecond = maxRecordsPerSecond;
+    }
+
+    /** Starts the release; the future completes once every migration has. */
+    public synchronized CompletableFuture<Void> start(List<? extends MapMigration<?, ?, ?>> migrations) {
+        if (started) {
+            throw new IllegalStateException("release already started");
+        }
+        started = true;
+        Map<String, Integer> sizes = new HashMap<>();
+        migrations.forEach(m -> sizes.computeIfAbsent(m.sourceMap(), name -> hz.getMap(name).size()));
+        List<MapMigration<?, ?, ?>> bySize = new ArrayList<>(migrations);
+        bySize.sort(Comparator.comparingInt(m -> sizes.get(m.sourceMap())));
+        pending.addAll(bySize);
+        migrationsTotal = bySize.size();
+        recordsTotal = bySize.stream().mapToLong(m -> sizes.get(m.sourceMap())).sum();
+        scheduleNext();
+        return done;
+    }
+
+    public synchronized Progress progress() {
+        long recordsMigrated = recordsOfCompletedJobs;
+        for (Job job : running.keySet()) {
+            recordsMigrated += MigrationMetrics.total(job, MigrationMetrics.UPSERTS);
+        }
+        return new Progress(migrationsCompleted, migrationsTotal, recordsMigrated, recordsTotal);
+    }
+
+    /** Jobs started so far, in start order. */
+    public synchronized List<Job> jobs() {
+        return List.copyOf(jobs);
+    }
+
+    private synchronized void scheduleNext() {
+        if (done.isDone()) {
+            return;
+        }
+        if (pending.isEmpty() && running.isEmpty()) {
+            done.complete(null);
+            return;
+        }
+        int toStart = Math.min(maxConcurrentJobs - running.size(), pending.size());
+        if (toStart <= 0) {
+            return;
+        }
+        long allocated = running.values().stream().mapToLong(Long::longValue).sum();
+        long share = Math.max(1, (maxRecordsPerSecond - allocated) / toStart);
+        for (int i = 0; i < toStart; i++) {
+            MapMigration<?, ?, ?> migration = pending.poll();
+            JobConfig config = new JobConfig()
+                    .setName(migration.name())
+                    .setStoreMetricsAfterJobCompletion(true)
+                    .setArgument(AdaptiveRateLimiter.MAX_RECORDS_PER_SECOND, share);
+            Job job = hz.getJet().newJob(migration.pipeline(), config);
+            running.put(job, share);
+            jobs.add(job);
+            // asynchronously: a job that is already complete mustn't reschedule from within this loop
+            job.getFuture().whenCompleteAsync((result, failure) -> onCompleted(job, failure));
+        }
+    }
+
+    private synchronized void onCompleted(Job job, Throwable failure) {
+        running.remove(job);
+        if (done.isDone()) {
+            return;
+        }
+        if (failure != null) {
+            running.keySet().forEach(Job::cancel);
+            done.completeExceptionally(failure);
+            return;
+        }
+        migrationsCompleted++;
+        recordsOfCompletedJobs += MigrationMetrics.total(job, MigrationMetrics.UPSERTS);
+        scheduleNext();
+    }
+}
@@ -0,0 +1,23 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Progress of a resumable bulk migration, as reported by {@link MigrationMetrics#progress}.
+ *
+ * @param partitionsCompleted partitions fully copied, including those restored from a snapshot
+ * @param partitionsTotal     partitions of the source map
+ * @param remainingMillis     estimated time to completion, -1 while no estimate is available yet
+ */
+public record MigrationProgress(long partitionsCompleted, long partitionsTotal, long remainingMillis) {
+
+    public double percentComplete() {
+        return partitionsTotal == 0 ? 0 : 100.0 * partitionsCompleted / partitionsTotal;
+    }
+
+    /** Empty until every processor has copied at least one partition in the current run. */
+    public Optional<Duration> estimatedRemaining() {
+        return remainingMillis < 0 ? Optional.empty() : Optional.of(Duration.ofMillis(remainingMillis));
+    }
+}
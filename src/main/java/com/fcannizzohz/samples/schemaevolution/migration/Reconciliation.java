@@ -0,0 +1,224 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.aggregation.Aggregator;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.function.BiFunctionEx;
+import com.hazelcast.jet.Util;
+import com.hazelcast.map.IMap;
+import com.hazelcast.projection.Projection;
+import com.hazelcast.query.Predicate;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Verifies that a target map holds exactly the converted entries of a source map, without
+ * comparing them key by key.
+ * <p>
+ * Keys are hashed into buckets, and each bucket gets an order-independent digest: the entry
+ * count and the wrapping sum of a 64-bit hash of every entry. Source entries are hashed after
+ * the V2 to V3 conversion, so a correctly migrated entry hashes the same on both sides. The
+ * digests are computed by an aggregation that every member runs on its own partitions in
+ * parallel, so only the bucket digests cross the network.
+ * <p>
+ * Only buckets whose digests differ are looked at further: a second member-side pass returns
+ * the key and hash of the entries of those buckets only, and comparing them gives the exact
+ * divergent keys.
+ */
+public final class Reconciliation<K, S, T> {
+
+    public static final int DEFAULT_BUCKETS = 1024;
+
+    private final IMap<K, S> source;
+    private final IMap<K, T> target;
+    private final BiFunctionEx<K, S, Long> sourceHash;
+    private final BiFunctionEx<K, T, Long> targetHash;
+    private final int buckets;
+
+    public Reconciliation(IMap<K, S> source, IMap<K, T> target,
+                          BiFunctionEx<K, S, Long> sourceHash, BiFunctionEx<K, T, Long> targetHash, int buckets) {
+        this.source = source;
+        this.target = target;
+        this.sourceHash = sourceHash;
+        this.targetHash = targetHash;
+        this.buckets = buckets;
+    }
+
+    /** Reconciliation of {@code orders} with {@code orders_v3}. */
+    public static Reconciliation<Long, OrderV2, OrderV3> forOrders(HazelcastInstance hz) {
+        return new Reconciliation<>(hz.getMap("orders"), hz.getMap("orders_v3"),
+                (key, v2) -> hash(key, V2toV3PipelineFactory.toOrderV3(v2)),
+                Reconciliation::hash,
+                DEFAULT_BUCKETS);
+    }
+
+    public ReconciliationReport<K> run() {
+        BucketDigests sourceDigests = source.aggregate(new BucketDigestAggregator<>(sourceHash, buckets));
+        BucketDigests targetDigests = target.aggregate(new BucketDigestAggregator<>(targetHash, buckets));
+        Set<Integer> differing = sourceDigests.differingBuckets(targetDigests);
+
+        Set<K> missing = new HashSet<>();
+        Set<K> unexpected = new HashSet<>();
+        Set<K> different = new HashSet<>();
+        if (!differing.isEmpty()) {
+            Map<K, Long> sourceHashes = hashesIn(source, sourceHash, differing);
+            Map<K, Long> targetHashes = hashesIn(target, targetHash, differing);
+            sourceHashes.forEach((key, hash) -> {
+                Long targetValue = targetHashes.get(key);
+                if (targetValue == null) {
+                    missing.add(key);
+                } else if (!targetValue.equals(hash)) {
+                    different.add(key);
+                }
+            });
+            targetHashes.keySet().stream()
+                        .filter(key -> !sourceHashes.containsKey(key))
+                        .forEach(unexpected::add);
+        }
+        return new ReconciliationReport<>(buckets, differing.size(), missing, unexpected, different);
+    }
+
+    private <V> Map<K, Long> hashesIn(IMap<K, V> map, BiFunctionEx<K, V, Long> hash, Set<Integer> bucketIds) {
+        Map<K, Long> hashes = new HashMap<>();
+        for (Map.Entry<K, Long> e : map.project(new KeyHashProjection<>(hash), new InBuckets<>(bucketIds, buckets))) {
+            hashes.put(e.getKey(), e.getValue());
+        }
+        return hashes;
+    }
+
+    static int bucketOf(Object key, int buckets) {
+        return Math.floorMod(mix(key.hashCode()), buckets);
+    }
+
+    /** 64-bit hash of a migrated order, over every field the V2 to V3 conversion writes. */
+    static long hash(Long key, OrderV3 o) {
+        long h = mix(key);
+        h = mix(h * 31 + o.id());
+        h = mix(h * 31 + o.accountId());
+        h = mix(h * 31 + amountHash(o.amount()));
+        h = mix(h * 31 + Objects.hashCode(o.status()));
+        return mix(h * 31 + Objects.hashCode(o.currency()));
+    }
+
+    private static long amountHash(BigDecimal amount) {
+        // scale included: 1.0 and 1.00 are different values once stored
+        return amount == null ? 0 : amount.unscaledValue().hashCode() * 31L + amount.scale();
+    }
+
+    /** Finalizer of MurmurHash3: spreads every input bit over the whole result. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Per-bucket entry counts and hash sums. */
+    static final class BucketDigests implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] counts;
+        private final long[] sums;
+
+        BucketDigests(int buckets) {
+            this.counts = new long[buckets];
+            this.sums = new long[buckets];
+        }
+
+        void add(int bucket, long hash) {
+            counts[bucket]++;
+            // wrapping addition: independent of the order entries are visited in
+            sums[bucket] += hash;
+        }
+
+        void addAll(BucketDigests other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                sums[i] += other.sums[i];
+            }
+        }
+
+        Set<Integer> differingBuckets(BucketDigests other) {
+            Set<Integer> differing = new HashSet<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != other.counts[i] || sums[i] != other.sums[i]) {
+                    differing.add(i);
+                }
+            }
+            return differing;
+        }
+    }
+
+    private static final class BucketDigestAggregator<K, V> implements Aggregator<Map.Entry<K, V>, BucketDigests> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BiFunctionEx<K, V, Long> hash;
+        private final BucketDigests digests;
+
+        BucketDigestAggregator(BiFunctionEx<K, V, Long> hash, int buckets) {
+            this.hash = hash;
+            this.digests = new BucketDigests(buckets);
+        }
+
+        @Override
+        public void accumulate(Map.Entry<K, V> entry) {
+            digests.add(bucketOf(entry.getKey(), digests.counts.length), hash.apply(entry.getKey(), entry.getValue()));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void combine(Aggregator aggregator) {
+            digests.addAll(((BucketDigestAggregator<K, V>) aggregator).digests);
+        }
+
+        @Override
+        public BucketDigests aggregate() {
+            return digests;
+        }
+    }
+
+    private static final class KeyHashProjection<K, V> implements Projection<Map.Entry<K, V>, Map.Entry<K, Long>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BiFunctionEx<K, V, Long> hash;
+
+        KeyHashProjection(BiFunctionEx<K, V, Long> hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public Map.Entry<K, Long> transform(Map.Entry<K, V> entry) {
+            return Util.entry(entry.getKey(), hash.apply(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private static final class InBuckets<K, V> implements Predicate<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final HashSet<Integer> bucketIds;
+        private final int buckets;
+
+        InBuckets(Set<Integer> bucketIds, int buckets) {
+            this.bucketIds = new HashSet<>(bucketIds);
+            this.buckets = buckets;
+        }
+
+        @Override
+        public boolean apply(Map.Entry<K, V> entry) {
+            return bucketIds.contains(bucketOf(entry.getKey(), buckets));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import java.util.Set;
+
+/**
+ * Outcome of a {@link Reconciliation}.
+ *
+ * @param bucketsCompared   buckets whose digests were compared
+ * @param bucketsDiffering  buckets whose digests differed and were drilled into
+ * @param missing           keys of the source that the target lacks
+ * @param unexpected        keys of the target that the source lacks
+ * @param different         keys whose target value isn't the converted source value
+ */
+public record ReconciliationReport<K>(int bucketsCompared,
+                                      int bucketsDiffering,
+                                      Set<K> missing,
+                                      Set<K> unexpected,
+                                      Set<K> different) {
+
+    public boolean isConsistent() {
+        return missing.isEmpty() && unexpected.isEmpty() && different.isEmpty();
+    }
+}
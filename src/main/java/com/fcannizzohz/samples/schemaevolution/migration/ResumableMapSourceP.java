@@ -0,0 +1,164 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.metrics.Metric;
+import com.hazelcast.jet.core.metrics.Metrics;
+import com.hazelcast.jet.core.metrics.Unit;
+import com.hazelcast.map.impl.proxy.MapProxyImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+
+/**
+ * Batch source that copies a map partition by partition and records the partitions it has
+ * finished in snapshots, so that a restarted or resumed job copies only the remaining ones.
+ * <p>
+ * A partition counts as finished once all its entries have been emitted: a snapshot taken
+ * while a partition is being copied doesn't record it, and that partition is copied again
+ * from its start after a restart. The copy is therefore at-least-once, with at most one
+ * partition per processor copied twice.
+ * <p>
+ * Progress is published as the {@link MigrationMetrics#PARTITIONS_TOTAL},
+ * {@link MigrationMetrics#PARTITIONS_COMPLETED} and {@link MigrationMetrics#REMAINING_MILLIS}
+ * metrics, see {@link MigrationMetrics#progress}.
+ */
+public final class ResumableMapSourceP<K, V> extends AbstractProcessor {
+
+    private static final int FETCH_SIZE = 1024;
+
+    private final String sourceMapName;
+
+    private MapProxyImpl<K, V> map;
+    private int[] partitions;
+    private boolean[] completed;
+    private int completedBeforeStart;
+    private int completedSinceStart;
+    private long startNanos;
+    private Metric partitionsCompleted;
+    private Metric remainingMillis;
+
+    private Traverser<Map.Entry<K, V>> traverser;
+    private int current;
+    private Traverser<Map.Entry<BroadcastKey<Integer>, Boolean>> snapshotTraverser;
+
+    private ResumableMapSourceP(String sourceMapName) {
+        this.sourceMapName = sourceMapName;
+    }
+
+    public static <K, V> ProcessorMetaSupplier metaSupplier(String sourceMapName) {
+        return ProcessorMetaSupplier.of(2,
+                ProcessorSupplier.of(() -> new ResumableMapSourceP<K, V>(sourceMapName))
+        );
+    }
+
+    @Override
+    public boolean isCooperative() {
+        // map iteration is a blocking call
+        return false;
+    }
+
+    @Override
+    public void init(Context context) {
+        HazelcastInstance hz = context.hazelcastInstance();
+        // member-side proxy: gives access to per-partition iteration
+        this.map = (MapProxyImpl<K, V>) hz.<K, V>getMap(sourceMapName);
+
+        int partitionCount = hz.getPartitionService().getPartitions().size();
+        this.partitions = IntStream.range(0, partitionCount)
+                                   .filter(p -> p % context.totalParallelism() == context.globalProcessorIndex())
+                                   .toArray();
+        this.completed = new boolean[partitions.length];
+        this.startNanos = System.nanoTime();
+
+        Metrics.metric(MigrationMetrics.PARTITIONS_TOTAL, Unit.COUNT).set(partitions.length);
+        this.partitionsCompleted = Metrics.metric(MigrationMetrics.PARTITIONS_COMPLETED, Unit.COUNT);
+        this.remainingMillis = Metrics.metric(MigrationMetrics.REMAINING_MILLIS, Unit.MS);
+        remainingMillis.set(partitions.length == 0 ? 0 : -1);
+    }
+
+    @Override
+    public boolean complete() {
+        if (traverser != null) {
+            if (!emitFromTraverser(traverser)) {
+                return false;
+            }
+            traverser = null;
+            completed[current] = true;
+            completedSinceStart++;
+            updateProgress();
+        }
+        int next = nextPartitionToCopy();
+        if (next < 0) {
+            return true;
+        }
+        current = next;
+        traverser = Traversers.traverseIterator(map.iterator(FETCH_SIZE, partitions[next], true))
+                              .map(e -> Util.entry(e.getKey(), e.getValue()));
+        return false;
+    }
+
+    private int nextPartitionToCopy() {
+        for (int i = 0; i < partitions.length; i++) {
+            if (!completed[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void updateProgress() {
+        int done = completedBeforeStart + completedSinceStart;
+        partitionsCompleted.set(done);
+        // only this run's pace counts: partitions restored from the snapshot took no time here
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        remainingMillis.set(elapsedMillis * (partitions.length - done) / completedSinceStart);
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        if (snapshotTraverser == null) {
+            List<Map.Entry<BroadcastKey<Integer>, Boolean>> state = new ArrayList<>();
+            for (int i = 0; i < partitions.length; i++) {
+                if (completed[i]) {
+                    state.add(Util.entry(broadcastKey(partitions[i]), true));
+                }
+            }
+            snapshotTraverser = Traversers.traverseIterable(state)
+                                          .onFirstNull(() -> snapshotTraverser = null);
+        }
+        return emitFromTraverserToSnapshot(snapshotTraverser);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void restoreFromSnapshot(Object key, Object value) {
+        // completed partitions are broadcast to all processors, each keeps its own
+        int partitionId = ((BroadcastKey<Integer>) key).key();
+        for (int i = 0; i < partitions.length; i++) {
+            if (partitions[i] == partitionId && !completed[i]) {
+                completed[i] = true;
+                completedBeforeStart++;
+            }
+        }
+    }
+
+    @Override
+    public boolean finishSnapshotRestore() {
+        partitionsCompleted.set(completedBeforeStart);
+        if (completedBeforeStart == partitions.length) {
+            remainingMillis.set(0);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package com.fcannizzohz.samples.schemaevolution.migration;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.AmountEncoding;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.SqlMappings;
+import com.hazelcast.core.HazelcastInstance;
+
+import java.math.BigDecimal;
+
+/**
+ * Bulk migration of {@code orders} into {@code orders_v3} through the SQL engine instead of a
+ * hand-built pipeline. The result is the same as {@link V2toV3PipelineFactory#createBulkPipeline()}.
+ * <p>
+ * Both maps are mapped under the migration's own names, {@value #ORDERS_MAPPING} and
+ * {@value #ORDERS_V3_MAPPING}, so the mappings the application created for them are left alone.
+ * The mappings are derived from the serializers with {@link SqlMappings}, so the records SQL
+ * writes into {@code orders_v3} have exactly the fields {@link OrderV3Serializer} reads. The
+ * statement applies the V2 to V3 mapping in SQL: {@code customerId} becomes {@code accountId},
+ * which assumes the identity account mapping of the pipelines, and a missing currency
+ * becomes {@link OrderV2Serializer#DEFAULT_CURRENCY}. Amounts are copied in both encodings, so
+ * the mappings are derived from serializers set to {@link AmountEncoding#DECIMAL_AND_FIXED_POINT}:
+ * a record that lacks one of them gets a null column, which readers fall back from.
+ */
+public final class SqlMigration {
+
+    public static final String ORDERS_MAPPING = "orders_migration_source";
+    public static final String ORDERS_V3_MAPPING = "orders_v3_migration_target";
+
+    private static final OrderV2 SAMPLE_V2 = new OrderV2(0, 0, BigDecimal.ZERO, "", "");
+    private static final OrderV3 SAMPLE_V3 = new OrderV3(0, 0, BigDecimal.ZERO, "", "");
+
+    private SqlMigration() {
+    }
+
+    public static String ordersMapping() {
+        return SqlMappings.createMapping(ORDERS_MAPPING, "orders", "bigint",
+                new OrderV2Serializer(AmountEncoding.DECIMAL_AND_FIXED_POINT), SAMPLE_V2);
+    }
+
+    public static String ordersV3Mapping() {
+        return SqlMappings.createMapping(ORDERS_V3_MAPPING, "orders_v3", "bigint",
+                new OrderV3Serializer(AmountEncoding.DECIMAL_AND_FIXED_POINT), SAMPLE_V3);
+    }
+
+    public static String migrationStatement() {
+        return """
+                SINK INTO %s (__key, id, accountId, amount, amountMinorUnits, amountScale, status, currency)
+                SELECT __key, id, customerId, amount, amountMinorUnits, amountScale, status, COALESCE(currency, '%s')
+                FROM %s
+                """.formatted(ORDERS_V3_MAPPING, OrderV2Serializer.DEFAULT_CURRENCY, ORDERS_MAPPING);
+    }
+
+    /** Creates the two mappings and copies {@code orders} into {@code orders_v3}, returning once done. */
+    public static void run(HazelcastInstance hz) {
+        execute(hz, ordersMapping());
+        execute(hz, ordersV3Mapping());
+        execute(hz, migrationStatement());
+    }
+
+    private static void execute(HazelcastInstance hz, String statement) {
+        // DDL and DML: nothing to read
+        hz.getSql().execute(statement).close();
+    }
+}
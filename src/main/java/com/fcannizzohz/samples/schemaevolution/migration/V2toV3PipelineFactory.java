@@ -1,101 +1,478 @@
 package com.fcannizzohz.samples.schemaevolution.migration;
 
+import com.fcannizzohz.samples.schemaevolution.model.OrderKey;
 import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
 import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.AmountEncoding;
+import com.fcannizzohz.samples.schemaevolution.serializers.Amounts;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderDictionaries;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.StringEncoding;
+import com.hazelcast.core.EntryEventType;
 import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.function.PredicateEx;
-import com.hazelcast.jet.core.AbstractProcessor;
-import com.hazelcast.jet.core.ProcessorMetaSupplier;
-import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.accumulator.MutableReference;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.datamodel.KeyedWindowResult;
+import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.pipeline.JournalInitialPosition;
 import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.ServiceFactories;
+import com.hazelcast.jet.pipeline.ServiceFactory;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.jet.pipeline.Sources;
-import com.hazelcast.jet.pipeline.StreamStage;
-import com.hazelcast.map.IMap;
+import com.hazelcast.jet.pipeline.StreamSource;
+import com.hazelcast.jet.pipeline.WindowDefinition;
+import com.hazelcast.map.EventJournalMapEvent;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecord;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecordBuilder;
+import com.hazelcast.projection.Projection;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
 
-import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class V2toV3PipelineFactory {
 
+    /** Target of {@link #createArchivePipeline}: the orders left out of the migration, as V2 records. */
+    public static final String ORDERS_ARCHIVE = "orders_archive";
+    /** Target of the re-keyed pipelines: {@code orders_v3} keyed by {@link OrderKey}. */
+    public static final String ORDERS_V3_BY_ACCOUNT = "orders_v3_by_account";
+
+    private static final String ORDER_V3_TYPE_NAME = "com.acme.OrderV3";
+    private static final int TRANSLATION_BATCH_SIZE = 1024;
+    /** The translation of the pipelines given no translator: {@code accountIdFromCustomerId}. */
+    private static final ServiceFactory<?, IdTranslator> CUSTOMER_ACCOUNT_IDS =
+            ServiceFactories.sharedService(ctx -> V2toV3PipelineFactory::accountIdsFromCustomerIds);
+
     public static Pipeline createBulkPipeline() {
         Pipeline bulk = Pipeline.create();
         bulk.readFrom(Sources.<Long, OrderV2>map("orders"))
             .map(V2toV3PipelineFactory::getLongOrderV3Entry)
+            .map(MigrationMetrics::countUpsert)
             .writeTo(Sinks.map("orders_v3")); return bulk;
     }
 
+    /**
+     * Same as {@link #createBulkPipeline()}, paced by an {@link AdaptiveRateLimiter} that slows
+     * the copy down whenever the latency of live {@code orders} operations exceeds the target.
+     * The cap and the target are set with the job arguments
+     * {@link AdaptiveRateLimiter#MAX_RECORDS_PER_SECOND} and
+     * {@link AdaptiveRateLimiter#TARGET_LATENCY_MILLIS}.
+     */
+    public static Pipeline createThrottledBulkPipeline() {
+        Pipeline bulk = Pipeline.create();
+        bulk.readFrom(Sources.<Long, OrderV2>map("orders"))
+            .mapUsingService(AdaptiveRateLimiter.serviceFactory("orders"), AdaptiveRateLimiter::pass)
+            .map(V2toV3PipelineFactory::getLongOrderV3Entry)
+            .map(MigrationMetrics::countUpsert)
+            .writeTo(Sinks.map("orders_v3")); return bulk;
+    }
 
-    public static Pipeline createTailPipeline(HazelcastInstance hz) {
+    /**
+     * Throttled bulk migration that can be suspended, or fail, and pick up where it stopped:
+     * the source records the partitions it has copied in snapshots, so run it with a
+     * processing guarantee. Progress and time remaining are available from
+     * {@link MigrationMetrics#progress}.
+     */
+    public static Pipeline createResumableBulkPipeline() {
+        Pipeline bulk = Pipeline.create();
+        bulk.readFrom(Sources.<Map.Entry<Long, OrderV2>>batchFromProcessor("orders-resumable",
+                    ResumableMapSourceP.metaSupplier("orders")))
+            .mapUsingService(AdaptiveRateLimiter.serviceFactory("orders"), AdaptiveRateLimiter::pass)
+            .map(V2toV3PipelineFactory::getLongOrderV3Entry)
+            .map(MigrationMetrics::countUpsert)
+            .writeTo(Sinks.map("orders_v3")); return bulk;
+    }
+
+    /**
+     * Throttled bulk migration that moves instead of copying: each {@code orders} entry is
+     * removed once its V3 value is stored in {@code orders_v3}, and only if it is unchanged, so
+     * the cluster holds about one copy of the dataset throughout. See {@link MapMover}. While
+     * it runs, applications read and write through a {@link MigratingIMap}, whose reads fall
+     * back to whichever map holds the key.
+     */
+    public static Pipeline createMovePipeline() {
+        Pipeline move = Pipeline.create();
+        move.readFrom(Sources.<Long, OrderV2>map("orders"))
+            .mapUsingService(AdaptiveRateLimiter.serviceFactory("orders"), AdaptiveRateLimiter::pass)
+            .mapUsingServiceAsync(MapMover.<Long, OrderV2, OrderV3>serviceFactory("orders", "orders_v3"),
+                    (mover, e) -> mover.move(e.getKey(), e.getValue(), getLongOrderV3Entry(e).getValue()))
+            .map(MigrationMetrics::countMove)
+            .writeTo(Sinks.noop()); return move;
+    }
+
+    /**
+     * Same as {@link #createBulkPipeline()}, for the orders matching {@code filter} only. The
+     * filter and the conversion both run on the members as part of the map scan, so the job
+     * only ever receives the converted entries it writes. See {@link MigrationFilters}.
+     */
+    public static Pipeline createFilteredBulkPipeline(Predicate<Long, OrderV2> filter) {
+        Projection<Map.Entry<Long, OrderV2>, Map.Entry<Long, OrderV3>> convert = V2toV3PipelineFactory::toOrderV3Entry;
+        Pipeline bulk = Pipeline.create();
+        bulk.readFrom(Sources.map("orders", filter, convert))
+            .map(MigrationMetrics::countUpsert)
+            .writeTo(Sinks.map("orders_v3")); return bulk;
+    }
+
+    /**
+     * Same as {@link #createBulkPipeline()}, with the account ids translated by the given
+     * service, such as {@link AccountIdTranslator#serviceFactory()}, instead of
+     * {@code accountIdFromCustomerId}. Records are translated in batches of up to
+     * {@value #TRANSLATION_BATCH_SIZE}, asynchronously, so lookups overlap with the conversion
+     * of other batches.
+     */
+    public static Pipeline createTranslatingBulkPipeline(ServiceFactory<?, ? extends IdTranslator> translator) {
+        Pipeline bulk = Pipeline.create();
+        bulk.readFrom(Sources.<Long, OrderV2>map("orders"))
+            .mapUsingServiceAsyncBatched(translator, TRANSLATION_BATCH_SIZE,
+                    V2toV3PipelineFactory::translateAccountIds)
+            .map(MigrationMetrics::countUpsert)
+            .writeTo(Sinks.map("orders_v3")); return bulk;
+    }
+
+    /**
+     * Copies the orders that don't match {@code filter}, unchanged, to {@link #ORDERS_ARCHIVE}:
+     * run it with the filter of {@link #createFilteredBulkPipeline} so that every order ends up
+     * in exactly one of the two maps.
+     */
+    public static Pipeline createArchivePipeline(Predicate<Long, OrderV2> filter) {
+        Projection<Map.Entry<Long, OrderV2>, Map.Entry<Long, OrderV2>> copy = e -> Util.entry(e.getKey(), e.getValue());
+        Pipeline archive = Pipeline.create();
+        archive.readFrom(Sources.map("orders", Predicates.<Long, OrderV2>not(filter), copy))
+               .writeTo(Sinks.map(ORDERS_ARCHIVE)); return archive;
+    }
+
+    /**
+     * Same as {@link #createBulkPipeline()}, but keyed by {@link OrderKey} in
+     * {@link #ORDERS_V3_BY_ACCOUNT}: the orders of an account share a partition, so per-account
+     * queries and aggregations touch a single partition instead of all of them.
+     */
+    public static Pipeline createRekeyedBulkPipeline() {
+        Pipeline bulk = Pipeline.create();
+        bulk.readFrom(Sources.<Long, OrderV2>map("orders"))
+            .map(V2toV3PipelineFactory::getLongOrderV3Entry)
+            .map(e -> Util.entry(OrderKey.of(e.getValue()), e.getValue()))
+            .map(MigrationMetrics::countUpsert)
+            .writeTo(Sinks.map(ORDERS_V3_BY_ACCOUNT)); return bulk;
+    }
+
+    /**
+     * Tail pipeline of {@link #createRekeyedBulkPipeline()}. Journal events only carry the
+     * order id as key, so a removal takes the account from the event's old value, and an update
+     * that changes the account also removes the entry under its previous key.
+     */
+    public static Pipeline createRekeyedTailPipeline(HazelcastInstance hz) {
+        return createRekeyedTailPipeline(hz, CUSTOMER_ACCOUNT_IDS);
+    }
+
+    /**
+     * Same as {@link #createRekeyedTailPipeline(HazelcastInstance)}, with the account ids of
+     * both the old and the new value translated by {@code translator}, as in
+     * {@link #createTranslatingBulkPipeline}.
+     */
+    public static Pipeline createRekeyedTailPipeline(HazelcastInstance hz,
+                                                     ServiceFactory<?, ? extends IdTranslator> translator) {
         Pipeline tail = Pipeline.create();
+        tail.readFrom(Sources.mapJournal(hz.<Long, OrderV2>getMap("orders"),
+                    JournalInitialPosition.START_FROM_CURRENT,
+                    V2toV3PipelineFactory::toChange,
+                    V2toV3PipelineFactory::isPutOrRemove))
+            .withIngestionTimestamps()
+            .mapUsingServiceAsyncBatched(translator, TRANSLATION_BATCH_SIZE, V2toV3PipelineFactory::toRekeyedWrites)
+            .flatMap(Traversers::traverseIterable)
+            .map(MigrationMetrics::countWrite)
+            .writeTo(Sinks.mapWithUpdating(ORDERS_V3_BY_ACCOUNT, Map.Entry::getKey,
+                    V2toV3PipelineFactory::applyToRekeyedTarget));
+        return tail;
+    }
+
+    /**
+     * Bulk migration that never materialises the domain objects: entries are read as
+     * {@link GenericRecord}s and rebuilt as {@code com.acme.OrderV3} records, which the
+     * {@link OrderV3Serializer} reads back as {@link OrderV3}. It relies on the members
+     * having no serializer or class for {@code com.acme.Order}, which is what makes them
+     * hand out {@link GenericRecord}s in the first place.
+     */
+    public static Pipeline createGenericBulkPipeline() {
+        Pipeline bulk = Pipeline.create();
+        bulk.readFrom(Sources.<Long, GenericRecord>map("orders"))
+            .map(V2toV3PipelineFactory::getLongOrderV3RecordEntry)
+            .map(MigrationMetrics::countUpsert)
+            .writeTo(Sinks.map("orders_v3")); return bulk;
+    }
 
-        StreamStage<Map.Entry<Long, OrderV2>> journal = tail
-                .readFrom(Sources.<Long, OrderV2>mapJournal(hz.getMap("orders"), JournalInitialPosition.START_FROM_CURRENT))
-                .withIngestionTimestamps();
+    /**
+     * Tail pipeline that applies each journal event to {@code orders_v3}. Upserts and removals
+     * go through the same sink and order is preserved from the journal to it, so the writes of
+     * a key are applied in journal order: a removal can't overtake the put that preceded it.
+     */
+    public static Pipeline createTailPipeline(HazelcastInstance hz) {
+        return createTailPipeline(hz, CUSTOMER_ACCOUNT_IDS);
+    }
 
-        // upserts
-        journal.filter((PredicateEx<Map.Entry<Long, OrderV2>>) e -> e.getValue() != null)
-               .map(V2toV3PipelineFactory::getLongOrderV3Entry)
-               .writeTo(Sinks.map("orders_v3"));
+    /**
+     * Same as {@link #createTailPipeline(HazelcastInstance)}, with the account ids translated
+     * by {@code translator}, as in {@link #createTranslatingBulkPipeline}.
+     */
+    public static Pipeline createTailPipeline(HazelcastInstance hz, ServiceFactory<?, ? extends IdTranslator> translator) {
+        Pipeline tail = Pipeline.create().setPreserveOrder(true);
+        tail.readFrom(ordersJournal(hz))
+            .withIngestionTimestamps()
+            .mapUsingServiceAsyncBatched(translator, TRANSLATION_BATCH_SIZE, V2toV3PipelineFactory::withAccountIds)
+            .map(V2toV3PipelineFactory::getLongOrderV3EntryOrRemoval)
+            .writeTo(Sinks.fromProcessor("orders-v3-sink", BatchedMapWriteP.metaSupplier("orders_v3"))); return tail;
+    }
 
-        // deletes
-        journal.filter(new ValueIsNullFilter())
-               .writeTo(Sinks.fromProcessor("v2-remove-sink", MapRemoveP.metaSupplier("orders_v3")));
+    /**
+     * Tail pipeline that writes only the last state of each key per tumbling window of
+     * {@code windowMillis}: a key updated many times within a window is written once, and a
+     * key removed at the end of the window is only removed. The results of a key all come from
+     * the same aggregating processor, order is preserved from there to the sink, and upserts
+     * and removals share that sink, so the final states of a key are applied in window order.
+     */
+    public static Pipeline createCoalescingTailPipeline(HazelcastInstance hz, long windowMillis) {
+        return createCoalescingTailPipeline(hz, windowMillis, CUSTOMER_ACCOUNT_IDS);
+    }
 
+    /**
+     * Same as {@link #createCoalescingTailPipeline(HazelcastInstance, long)}, with the account
+     * ids of the final states translated by {@code translator}, as in
+     * {@link #createTranslatingBulkPipeline}.
+     */
+    public static Pipeline createCoalescingTailPipeline(HazelcastInstance hz, long windowMillis,
+                                                        ServiceFactory<?, ? extends IdTranslator> translator) {
+        // without it the stages after the window spread a key's results over their processors
+        Pipeline tail = Pipeline.create().setPreserveOrder(true);
+        tail.readFrom(ordersJournal(hz))
+            .withIngestionTimestamps()
+            .groupingKey(Map.Entry::getKey)
+            .window(WindowDefinition.tumbling(windowMillis))
+            .aggregate(V2toV3PipelineFactory.<Map.Entry<Long, OrderV2>>last())
+            .map(KeyedWindowResult::result)
+            .mapUsingServiceAsyncBatched(translator, TRANSLATION_BATCH_SIZE, V2toV3PipelineFactory::withAccountIds)
+            .map(V2toV3PipelineFactory::getLongOrderV3EntryOrRemoval)
+            .map(MigrationMetrics::countWrite)
+            .writeTo(Sinks.mapWithUpdating("orders_v3", Map.Entry::getKey, V2toV3PipelineFactory::applyToTarget));
         return tail;
     }
 
-    private static Map.Entry<Long, OrderV3> getLongOrderV3Entry(Map.Entry<Long, OrderV2> e) {
-        OrderV2 v2 = e.getValue();
-        System.out.println("mapping " + v2);
-        return Map.entry(v2.id(), new OrderV3(
-                v2.id(),
-                accountIdFromCustomerId(v2.customerId()),
-                v2.amount(),
-                v2.status(),
-                v2.currency()));
+    private static StreamSource<Map.Entry<Long, OrderV2>> ordersJournal(HazelcastInstance hz) {
+        // the default journal source only emits ADDED and UPDATED events, removals must be asked for explicitly
+        return Sources.mapJournal(hz.<Long, OrderV2>getMap("orders"),
+                JournalInitialPosition.START_FROM_CURRENT,
+                Util.mapEventToEntry(),
+                V2toV3PipelineFactory::isPutOrRemove);
     }
 
-    public static final class ValueIsNullFilter
-            implements PredicateEx<Map.Entry<Long, OrderV2>>, Serializable {
-        @Override
-        public boolean testEx(Map.Entry<Long, OrderV2> e) {
-            return e.getValue() == null;
-        }
+    /** Keeps the last item of each key: the events of a key reach one accumulator, in journal order. */
+    private static <T> AggregateOperation1<T, MutableReference<T>, T> last() {
+        return AggregateOperation
+                .withCreate(MutableReference<T>::new)
+                .<T>andAccumulate(MutableReference::set)
+                .andCombine((acc, other) -> {
+                    if (other.get() != null) {
+                        acc.set(other.get());
+                    }
+                })
+                .andExportFinish(MutableReference::get);
     }
 
-    /** Processor for deletes */
-    public static final class MapRemoveP<K> extends AbstractProcessor {
-        private final String targetMapName;
-        private transient IMap<K, ?> map;
+    /**
+     * Single job that copies {@code orders} and then keeps following its journal, starting from
+     * the journal offsets taken right before the copy. Nothing written while the job starts is
+     * lost. Keys that changed before their partition's copy started are written from the journal
+     * only, and keys changed during the copy are copied and then written again from the journal,
+     * so stale copied values never overwrite newer ones. See {@link BackfillThenTailP}.
+     */
+    public static Pipeline createBackfillThenTailPipeline() {
+        return createBackfillThenTailPipeline(JournalOverflowPolicy.FAIL, 1.0);
+    }
 
-        private MapRemoveP(String targetMapName) {
-            this.targetMapName = targetMapName;
-        }
+    /**
+     * Same as {@link #createBackfillThenTailPipeline()}, applying {@code overflowPolicy} to the
+     * partitions whose journal lag exceeds {@code lagThreshold} of their journal capacity.
+     */
+    public static Pipeline createBackfillThenTailPipeline(JournalOverflowPolicy overflowPolicy, double lagThreshold) {
+        return createBackfillThenTailPipeline(overflowPolicy, lagThreshold, CUSTOMER_ACCOUNT_IDS);
+    }
 
-        public static <K> ProcessorMetaSupplier metaSupplier(String targetMapName) {
-            return ProcessorMetaSupplier.of(
-                    ProcessorSupplier.of(() -> new MapRemoveP<K>(targetMapName))
-            );
-        }
+    /**
+     * Same as {@link #createBackfillThenTailPipeline(JournalOverflowPolicy, double)}, with the
+     * account ids of copied and tailed orders translated by {@code translator}, as in
+     * {@link #createTranslatingBulkPipeline}.
+     */
+    public static Pipeline createBackfillThenTailPipeline(JournalOverflowPolicy overflowPolicy, double lagThreshold,
+                                                          ServiceFactory<?, ? extends IdTranslator> translator) {
+        // order is preserved from the source to the sink, so events of a key are applied in journal order
+        Pipeline pipeline = Pipeline.create().setPreserveOrder(true);
+        pipeline.readFrom(Sources.<Map.Entry<Long, OrderV2>>streamFromProcessor("orders-backfill-then-tail",
+                        BackfillThenTailP.metaSupplier("orders", "orders_v3", overflowPolicy, lagThreshold)))
+                .withIngestionTimestamps()
+                .mapUsingServiceAsyncBatched(translator, TRANSLATION_BATCH_SIZE, V2toV3PipelineFactory::withAccountIds)
+                .map(V2toV3PipelineFactory::getLongOrderV3EntryOrRemoval)
+                .map(MigrationMetrics::countWrite)
+                // upserts and removals go through the same sink so that they can't overtake each other
+                .writeTo(Sinks.mapWithUpdating("orders_v3", Map.Entry::getKey, V2toV3PipelineFactory::applyToTarget));
+        return pipeline;
+    }
 
-        @Override
-        public void init(Context context) {
-            this.map = context.hazelcastInstance().getMap(targetMapName);
+    private static OrderV3 applyToTarget(OrderV3 current, Map.Entry<Long, OrderV3> e) {
+        // a null value removes the entry
+        return e.getValue();
+    }
+
+    private static OrderV3 applyToRekeyedTarget(OrderV3 current, Map.Entry<OrderKey, OrderV3> e) {
+        // a null value removes the entry
+        return e.getValue();
+    }
+
+    /** Order id, old value and new value of a journal event: either value is null for an insert or a removal. */
+    private static Tuple3<Long, OrderV2, OrderV2> toChange(EventJournalMapEvent<Long, OrderV2> e) {
+        return Tuple3.tuple3(e.getKey(), e.getOldValue(), e.getNewValue());
+    }
+
+    private static CompletableFuture<List<List<Map.Entry<OrderKey, OrderV3>>>> toRekeyedWrites(
+            IdTranslator translator, List<Tuple3<Long, OrderV2, OrderV2>> batch) {
+        List<Long> customerIds = new ArrayList<>(2 * batch.size());
+        for (Tuple3<Long, OrderV2, OrderV2> change : batch) {
+            if (change.f1() != null) {
+                customerIds.add(change.f1().customerId());
+            }
+            if (change.f2() != null) {
+                customerIds.add(change.f2().customerId());
+            }
         }
+        return translator.translate(customerIds).thenApply(accountIds -> {
+            List<List<Map.Entry<OrderKey, OrderV3>>> writes = new ArrayList<>(batch.size());
+            int next = 0;
+            for (Tuple3<Long, OrderV2, OrderV2> change : batch) {
+                Long oldAccountId = change.f1() == null ? null : accountIds.get(next++);
+                Long newAccountId = change.f2() == null ? null : accountIds.get(next++);
+                List<Map.Entry<OrderKey, OrderV3>> changeWrites = new ArrayList<>(2);
+                if (oldAccountId != null && !oldAccountId.equals(newAccountId)) {
+                    changeWrites.add(Util.entry(new OrderKey(change.f0(), oldAccountId), null));
+                }
+                if (newAccountId != null) {
+                    OrderV3 v3 = toOrderV3(change.f2(), newAccountId);
+                    changeWrites.add(Util.entry(OrderKey.of(v3), v3));
+                }
+                writes.add(changeWrites);
+            }
+            return writes;
+        });
+    }
+
+    private static Map.Entry<Long, OrderV3> getLongOrderV3Entry(Map.Entry<Long, OrderV2> e) {
+        long start = System.nanoTime();
+        OrderV3 v3 = toOrderV3(e.getValue());
+        MigrationMetrics.recordMapped(System.nanoTime() - start);
+        return Util.entry(v3.id(), v3);
+    }
 
-        @Override
-        protected boolean tryProcess(int ordinal, Object item) {
-            Map.Entry<K, ?> entry = (Map.Entry<K, ?>) item;
-            map.remove(entry.getKey());
-            return true;
+    private static Map.Entry<Long, OrderV3> toOrderV3Entry(Map.Entry<Long, OrderV2> e) {
+        // runs in the map scan, outside of the job's processors: no metrics here
+        return Util.entry(e.getKey(), toOrderV3(e.getValue()));
+    }
+
+    private static CompletableFuture<List<Map.Entry<Long, OrderV3>>> translateAccountIds(
+            IdTranslator translator, List<Map.Entry<Long, OrderV2>> batch) {
+        List<Long> customerIds = batch.stream().map(e -> e.getValue().customerId()).toList();
+        return translator.translate(customerIds).thenApply(accountIds -> {
+            List<Map.Entry<Long, OrderV3>> converted = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Map.Entry<Long, OrderV2> e = batch.get(i);
+                converted.add(Util.entry(e.getKey(), toOrderV3(e.getValue(), accountIds.get(i))));
+            }
+            return converted;
+        });
+    }
+
+    /**
+     * Order id, order and translated account id of each entry of a batch. A removal (null
+     * order) has no account id. The conversion itself is left to the next stage, on the
+     * processor's thread, where its metrics can be recorded.
+     */
+    private static CompletableFuture<List<Tuple3<Long, OrderV2, Long>>> withAccountIds(
+            IdTranslator translator, List<Map.Entry<Long, OrderV2>> batch) {
+        List<Long> customerIds = batch.stream()
+                                      .filter(e -> e.getValue() != null)
+                                      .map(e -> e.getValue().customerId())
+                                      .toList();
+        return translator.translate(customerIds).thenApply(accountIds -> {
+            List<Tuple3<Long, OrderV2, Long>> translated = new ArrayList<>(batch.size());
+            int next = 0;
+            for (Map.Entry<Long, OrderV2> e : batch) {
+                Long accountId = e.getValue() == null ? null : accountIds.get(next++);
+                translated.add(Tuple3.tuple3(e.getKey(), e.getValue(), accountId));
+            }
+            return translated;
+        });
+    }
+
+    private static Map.Entry<Long, OrderV3> getLongOrderV3EntryOrRemoval(Tuple3<Long, OrderV2, Long> order) {
+        if (order.f1() == null) {
+            return Util.entry(order.f0(), null);
         }
+        long start = System.nanoTime();
+        OrderV3 v3 = toOrderV3(order.f1(), order.f2());
+        MigrationMetrics.recordMapped(System.nanoTime() - start);
+        return Util.entry(order.f0(), v3);
+    }
+
+    static OrderV3 toOrderV3(OrderV2 v2) {
+        return toOrderV3(v2, accountIdFromCustomerId(v2.customerId()));
+    }
+
+    static OrderV3 toOrderV3(OrderV2 v2, long accountId) {
+        return new OrderV3(
+                v2.id(),
+                accountId,
+                v2.amount(),
+                v2.status(),
+                v2.currency());
+    }
+
+    private static Map.Entry<Long, GenericRecord> getLongOrderV3RecordEntry(Map.Entry<Long, GenericRecord> e) {
+        long start = System.nanoTime();
+        GenericRecord v3 = toOrderV3Record(e.getValue());
+        MigrationMetrics.recordMapped(System.nanoTime() - start);
+        return Util.entry(e.getKey(), v3);
+    }
+
+    /** Same mapping as {@link #toOrderV3(OrderV2)}, done field by field on the Compact record. */
+    static GenericRecord toOrderV3Record(GenericRecord v2) {
+        // records written by OrderSerializer have no currency, same fallback as OrderV2Serializer
+        String currency = OrderDictionaries.CURRENCIES.get(v2, "currency", OrderV2Serializer.DEFAULT_CURRENCY);
+        String status = OrderDictionaries.STATUSES.get(v2, "status", null);
+        GenericRecordBuilder v3 = GenericRecordBuilder.compact(ORDER_V3_TYPE_NAME)
+                                                      .setInt64("id", v2.getInt64("id"))
+                                                      .setInt64("accountId", accountIdFromCustomerId(v2.getInt64("customerId")));
+        // same fields as OrderV3Serializer writes by default, so both produce a single schema
+        OrderDictionaries.STATUSES.set(v3, "status", status, StringEncoding.PLAIN);
+        OrderDictionaries.CURRENCIES.set(v3, "currency", currency, StringEncoding.PLAIN);
+        return Amounts.set(v3, Amounts.get(v2), AmountEncoding.DECIMAL).build();
+    }
+
+    private static boolean isPutOrRemove(EventJournalMapEvent<Long, OrderV2> e) {
+        EntryEventType type = e.getType();
+        return type == EntryEventType.ADDED || type == EntryEventType.UPDATED || type == EntryEventType.REMOVED;
     }
 
     private static long accountIdFromCustomerId(long l) {
         return l;
     }
 
+    private static CompletableFuture<List<Long>> accountIdsFromCustomerIds(List<Long> customerIds) {
+        return CompletableFuture.completedFuture(
+                customerIds.stream().map(V2toV3PipelineFactory::accountIdFromCustomerId).toList());
+    }
+
 }
 
@@ -0,0 +1,18 @@
+package com.fcannizzohz.samples.schemaevolution.model;
+
+import com.hazelcast.partition.PartitionAware;
+
+/** Key of an order co-located with its account: all of an account's orders share a partition. */
+public record OrderKey(
+        long orderId,
+        long accountId) implements PartitionAware<Long> {
+
+    public static OrderKey of(OrderV3 order) {
+        return new OrderKey(order.id(), order.accountId());
+    }
+
+    @Override
+    public Long getPartitionKey() {
+        return accountId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+/**
+ * How the serializers store an order amount.
+ * <p>
+ * Readers accept all of them: when {@code amountMinorUnits} is absent they fall back to the
+ * {@code amount} decimal, the same way {@link OrderV2Serializer} falls back on {@code currency}.
+ */
+public enum AmountEncoding {
+
+    /**
+     * Only the {@code amount} decimal, as every serializer wrote it before the fixed-point fields.
+     * The serializers' default: the fixed-point fields are opt-in through their constructors.
+     */
+    DECIMAL,
+
+    /**
+     * Both the decimal and the fixed-point fields. This is the rolling-upgrade setting:
+     * readers that only know {@code amount} keep working while new readers and SQL use the
+     * fixed-point fields.
+     */
+    DECIMAL_AND_FIXED_POINT,
+
+    /**
+     * Only {@code amountMinorUnits} and {@code amountScale}. Smallest entries and cheapest reads,
+     * but a reader that only knows {@code amount}, like {@link OrderSerializer}, can no longer
+     * read them: switch to it once none is left.
+     */
+    FIXED_POINT;
+
+    boolean writesDecimal() {
+        return this != FIXED_POINT;
+    }
+
+    boolean writesFixedPoint() {
+        return this != DECIMAL;
+    }
+}
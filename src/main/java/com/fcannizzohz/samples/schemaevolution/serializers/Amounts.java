@@ -0,0 +1,113 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.hazelcast.nio.serialization.FieldKind;
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecord;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecordBuilder;
+
+import java.math.BigDecimal;
+
+/**
+ * Reads and writes order amounts in the encodings of {@link AmountEncoding}.
+ * <p>
+ * The fixed-point form is the {@link BigDecimal}'s unscaled value as an {@code int64} plus its
+ * scale, so {@code 199.99} is stored as {@code 19999} and {@code 2}. It is lossless: the value
+ * read back is equal to the one written, scale included. Reading it takes a single
+ * {@link BigDecimal#valueOf(long, int)} instead of rebuilding the decimal's byte
+ * representation, and SQL can aggregate the {@code BIGINT} column directly, grouping by
+ * {@code amountScale} when amounts of different scales are mixed.
+ * <p>
+ * An amount whose unscaled value doesn't fit in 64 bits is written with null minor units and
+ * scale 0, and read back from the decimal, as a record written before the fixed-point fields
+ * existed would be. Only {@link AmountEncoding#FIXED_POINT}, which has no decimal to fall back
+ * on, rejects it.
+ */
+public final class Amounts {
+
+    public static final String DECIMAL_FIELD = "amount";
+    public static final String MINOR_UNITS_FIELD = "amountMinorUnits";
+    public static final String SCALE_FIELD = "amountScale";
+
+    private Amounts() {
+    }
+
+    public static void write(CompactWriter w, BigDecimal amount, AmountEncoding encoding) {
+        if (encoding.writesDecimal()) {
+            w.writeDecimal(DECIMAL_FIELD, amount);
+        }
+        if (encoding.writesFixedPoint()) {
+            Long minorUnits = minorUnits(amount, encoding);
+            w.writeNullableInt64(MINOR_UNITS_FIELD, minorUnits);
+            w.writeInt32(SCALE_FIELD, minorUnits == null ? 0 : amount.scale());
+        }
+    }
+
+    public static BigDecimal read(CompactReader r) {
+        if (r.getFieldKind(MINOR_UNITS_FIELD) == FieldKind.NULLABLE_INT64) {
+            Long minorUnits = r.readNullableInt64(MINOR_UNITS_FIELD);
+            if (minorUnits != null) {
+                return BigDecimal.valueOf(minorUnits, r.readInt32(SCALE_FIELD));
+            }
+        }
+        // written before the fixed-point fields existed, too large for them, or copied by SQL from such a record
+        return r.getFieldKind(DECIMAL_FIELD) == FieldKind.DECIMAL ? r.readDecimal(DECIMAL_FIELD) : null;
+    }
+
+    /** {@link #read} with the encoding resolved once for the schema the sources describe. */
+    public static UpcastingSerializer.ReadPlan<BigDecimal> plan(FieldSources sources) {
+        boolean hasDecimal = sources.kind(DECIMAL_FIELD) == FieldKind.DECIMAL;
+        if (sources.kind(MINOR_UNITS_FIELD) == FieldKind.NULLABLE_INT64) {
+            return r -> {
+                Long minorUnits = r.readNullableInt64(MINOR_UNITS_FIELD);
+                if (minorUnits != null) {
+                    return BigDecimal.valueOf(minorUnits, r.readInt32(SCALE_FIELD));
+                }
+                return hasDecimal ? r.readDecimal(DECIMAL_FIELD) : null;
+            };
+        }
+        if (hasDecimal) {
+            return r -> r.readDecimal(DECIMAL_FIELD);
+        }
+        BigDecimal defaultValue = sources.defaultValue(DECIMAL_FIELD);
+        return r -> defaultValue;
+    }
+
+    public static GenericRecordBuilder set(GenericRecordBuilder b, BigDecimal amount, AmountEncoding encoding) {
+        if (encoding.writesDecimal()) {
+            b.setDecimal(DECIMAL_FIELD, amount);
+        }
+        if (encoding.writesFixedPoint()) {
+            Long minorUnits = minorUnits(amount, encoding);
+            b.setNullableInt64(MINOR_UNITS_FIELD, minorUnits);
+            b.setInt32(SCALE_FIELD, minorUnits == null ? 0 : amount.scale());
+        }
+        return b;
+    }
+
+    public static BigDecimal get(GenericRecord r) {
+        if (r.getFieldKind(MINOR_UNITS_FIELD) == FieldKind.NULLABLE_INT64) {
+            Long minorUnits = r.getNullableInt64(MINOR_UNITS_FIELD);
+            if (minorUnits != null) {
+                return BigDecimal.valueOf(minorUnits, r.getInt32(SCALE_FIELD));
+            }
+        }
+        return r.getFieldKind(DECIMAL_FIELD) == FieldKind.DECIMAL ? r.getDecimal(DECIMAL_FIELD) : null;
+    }
+
+    /** Unscaled value of {@code amount}, or null if it has none or it is only stored as a decimal. */
+    private static Long minorUnits(BigDecimal amount, AmountEncoding encoding) {
+        if (amount == null) {
+            return null;
+        }
+        if (amount.unscaledValue().bitLength() < Long.SIZE) {
+            return amount.unscaledValue().longValue();
+        }
+        if (encoding.writesDecimal()) {
+            // readers fall back on the decimal field
+            return null;
+        }
+        throw new HazelcastSerializationException("Amount " + amount + " does not fit in 64-bit minor units");
+    }
+}
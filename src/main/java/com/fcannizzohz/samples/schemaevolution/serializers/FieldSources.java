@@ -0,0 +1,59 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.hazelcast.nio.serialization.FieldKind;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Where each field of the canonical model is found in one stored schema: under which name,
+ * and which value to use when the schema doesn't have it.
+ * <p>
+ * It starts with every field found under its own name, then each {@link Upcaster} records
+ * the changes of its version step. It is only built when a read plan is resolved, so none of
+ * the lookups here happen per record.
+ */
+public final class FieldSources {
+
+    private final Function<String, FieldKind> storedKinds;
+    // canonical name -> name in the stored schema, for renamed fields only
+    private final Map<String, String> renames = new HashMap<>();
+    private final Map<String, Object> defaults = new HashMap<>();
+
+    FieldSources(Function<String, FieldKind> storedKinds) {
+        this.storedKinds = storedKinds;
+    }
+
+    /**
+     * The field was called {@code oldName} before this step. Schemas that already have
+     * {@code newName} are left alone, and renames chain across steps.
+     */
+    public void rename(String oldName, String newName) {
+        String stored = name(oldName);
+        if (kind(newName) == FieldKind.NOT_AVAILABLE && storedKinds.apply(stored) != FieldKind.NOT_AVAILABLE) {
+            renames.put(newName, stored);
+        }
+    }
+
+    /** The field was added in this step: schemas without it read as {@code value}. */
+    public void added(String name, Object value) {
+        defaults.put(name, value);
+    }
+
+    /** Name under which the stored schema holds the canonical field. */
+    public String name(String canonicalName) {
+        return renames.getOrDefault(canonicalName, canonicalName);
+    }
+
+    /** Kind of the canonical field in the stored schema, {@link FieldKind#NOT_AVAILABLE} if it has none. */
+    public FieldKind kind(String canonicalName) {
+        return storedKinds.apply(name(canonicalName));
+    }
+
+    /** Value of the field for schemas that don't store it, null unless a step {@linkplain #added added} it. */
+    @SuppressWarnings("unchecked")
+    public <V> V defaultValue(String canonicalName) {
+        return (V) defaults.get(canonicalName);
+    }
+}
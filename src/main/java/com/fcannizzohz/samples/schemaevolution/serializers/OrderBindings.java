@@ -0,0 +1,49 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.codegen.BindingFor;
+import com.fcannizzohz.samples.schemaevolution.codegen.EncodedWith;
+import com.fcannizzohz.samples.schemaevolution.codegen.FieldDefault;
+import com.fcannizzohz.samples.schemaevolution.codegen.TypeName;
+import com.fcannizzohz.samples.schemaevolution.model.Order;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+
+import java.math.BigDecimal;
+
+/**
+ * Bindings of the generated order serializers: {@code OrderCompactSerializer},
+ * {@code OrderV2CompactSerializer} and {@code OrderV3CompactSerializer}, generated in this
+ * package. They are declared here rather than on the model records, which would otherwise
+ * depend on {@link OrderFieldCodecs} and on {@link OrderV2Serializer#DEFAULT_CURRENCY}.
+ */
+final class OrderBindings {
+
+    private OrderBindings() {
+    }
+
+    @TypeName("com.acme.Order")
+    @BindingFor(Order.class)
+    record OrderBinding(
+            long id,
+            long customerId,
+            BigDecimal amount,
+            String status) {}
+
+    @TypeName("com.acme.Order")  // same typeName: same logical type
+    @BindingFor(OrderV2.class)
+    record OrderV2Binding(
+            long id,
+            long customerId,
+            @EncodedWith(OrderFieldCodecs.Amount.class) BigDecimal amount,
+            @EncodedWith(OrderFieldCodecs.Status.class) String status,
+            @FieldDefault(OrderV2Serializer.DEFAULT_CURRENCY) @EncodedWith(OrderFieldCodecs.Currency.class) String currency) {}
+
+    @TypeName("com.acme.OrderV3")  // new typeName: new schema
+    @BindingFor(OrderV3.class)
+    record OrderV3Binding(
+            long id,
+            long accountId,
+            @EncodedWith(OrderFieldCodecs.Amount.class) BigDecimal amount,
+            @EncodedWith(OrderFieldCodecs.Status.class) String status,
+            @EncodedWith(OrderFieldCodecs.Currency.class) String currency) {}
+}
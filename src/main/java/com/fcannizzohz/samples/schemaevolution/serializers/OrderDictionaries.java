@@ -0,0 +1,18 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+/**
+ * Dictionaries shared by all order serializers. Only ever append to them: every deployed
+ * reader must know a code before any writer uses it.
+ */
+public final class OrderDictionaries {
+
+    public static final ValueDictionary STATUSES = ValueDictionary.of(
+            "pending", "ready", "paid", "shipped", "delivered", "cancelled", "refunded", "archived");
+
+    public static final ValueDictionary CURRENCIES = ValueDictionary.of(
+            "GBP", "USD", "EUR", "JPY", "CHF", "CAD", "AUD", "NZD", "SEK", "NOK", "DKK", "PLN", "CZK",
+            "HUF", "CNY", "HKD", "SGD", "INR", "BRL", "MXN", "ZAR", "TRY", "KRW", "AED", "SAR", "ILS");
+
+    private OrderDictionaries() {
+    }
+}
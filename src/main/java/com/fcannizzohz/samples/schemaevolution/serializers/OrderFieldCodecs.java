@@ -0,0 +1,61 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.codegen.FieldCodec;
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+import java.math.BigDecimal;
+
+/**
+ * Codecs of the order components the hand-written serializers encode, for the generated
+ * serializers. They write what {@link OrderV2Serializer} writes by default, so both produce
+ * the same schema, and read every encoding it can write.
+ */
+public final class OrderFieldCodecs {
+
+    private OrderFieldCodecs() {
+    }
+
+    /** {@link AmountEncoding#DECIMAL}, under the {@link Amounts} field names whatever the component's. */
+    public static final class Amount implements FieldCodec<BigDecimal> {
+
+        @Override
+        public void write(CompactWriter w, String field, BigDecimal value) {
+            Amounts.write(w, value, AmountEncoding.DECIMAL);
+        }
+
+        @Override
+        public BigDecimal read(CompactReader r, String field, BigDecimal defaultValue) {
+            BigDecimal amount = Amounts.read(r);
+            return amount != null ? amount : defaultValue;
+        }
+    }
+
+    /** Plain string, read plain or dictionary coded with {@link OrderDictionaries#STATUSES}. */
+    public static final class Status implements FieldCodec<String> {
+
+        @Override
+        public void write(CompactWriter w, String field, String value) {
+            OrderDictionaries.STATUSES.write(w, field, value, StringEncoding.PLAIN);
+        }
+
+        @Override
+        public String read(CompactReader r, String field, String defaultValue) {
+            return OrderDictionaries.STATUSES.read(r, field, defaultValue);
+        }
+    }
+
+    /** Plain string, read plain or dictionary coded with {@link OrderDictionaries#CURRENCIES}. */
+    public static final class Currency implements FieldCodec<String> {
+
+        @Override
+        public void write(CompactWriter w, String field, String value) {
+            OrderDictionaries.CURRENCIES.write(w, field, value, StringEncoding.PLAIN);
+        }
+
+        @Override
+        public String read(CompactReader r, String field, String defaultValue) {
+            return OrderDictionaries.CURRENCIES.read(r, field, defaultValue);
+        }
+    }
+}
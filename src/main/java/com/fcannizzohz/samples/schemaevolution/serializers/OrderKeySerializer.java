@@ -0,0 +1,37 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderKey;
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * Register it on every member and client that touches the re-keyed map: keys are compared in
+ * serialized form, so all of them must serialize an {@code OrderKey} the same way.
+ */
+public final class OrderKeySerializer implements CompactSerializer<OrderKey> {
+
+    @Override
+    public String getTypeName() {
+        return "com.acme.OrderKey";
+    }
+
+    @Override
+    public Class<OrderKey> getCompactClass() {
+        return OrderKey.class;
+    }
+
+    @Override
+    public void write(CompactWriter w, OrderKey k) {
+        w.writeInt64("orderId", k.orderId());
+        w.writeInt64("accountId", k.accountId());
+    }
+
+    @Override
+    public OrderKey read(CompactReader r) {
+        return new OrderKey(
+                r.readInt64("orderId"),
+                r.readInt64("accountId")
+        );
+    }
+}
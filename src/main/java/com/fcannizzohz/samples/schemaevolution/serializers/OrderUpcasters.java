@@ -0,0 +1,57 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The version steps of {@code com.acme.Order}, and a serializer that serves every stored
+ * version as {@link OrderV3} without migrating the data.
+ */
+public final class OrderUpcasters {
+
+    /** V1 to V2: {@code currency} added. */
+    public static final Upcaster V1_TO_V2 = s -> s.added("currency", OrderV2Serializer.DEFAULT_CURRENCY);
+    /** V2 to V3: {@code customerId} renamed to {@code accountId}. */
+    public static final Upcaster V2_TO_V3 = s -> s.rename("customerId", "accountId");
+
+    private OrderUpcasters() {
+    }
+
+    public static UpcastingSerializer<OrderV3> orderV3Serializer() {
+        return orderV3Serializer(AmountEncoding.DECIMAL, StringEncoding.PLAIN);
+    }
+
+    /**
+     * Reads {@code com.acme.Order} records of every version as {@link OrderV3}, and writes
+     * {@link OrderV3} objects in the V2 layout, {@code accountId} as {@code customerId}, so
+     * that V1 and V2 clients keep reading the map. The rename then stays in the model and no
+     * {@code orders_v3} copy is needed.
+     */
+    public static UpcastingSerializer<OrderV3> orderV3Serializer(AmountEncoding amountEncoding,
+                                                                 StringEncoding stringEncoding) {
+        return new UpcastingSerializer<>("com.acme.Order", OrderV3.class, List.of(V1_TO_V2, V2_TO_V3),
+                sources -> {
+                    String id = sources.name("id");
+                    String accountId = sources.name("accountId");
+                    UpcastingSerializer.ReadPlan<BigDecimal> amount = Amounts.plan(sources);
+                    UpcastingSerializer.ReadPlan<String> status = OrderDictionaries.STATUSES.plan(sources, "status");
+                    UpcastingSerializer.ReadPlan<String> currency = OrderDictionaries.CURRENCIES.plan(sources, "currency");
+                    return r -> new OrderV3(
+                            r.readInt64(id),
+                            r.readInt64(accountId),
+                            amount.read(r),
+                            status.read(r),
+                            currency.read(r)
+                    );
+                },
+                (w, o) -> {
+                    w.writeInt64("id", o.id());
+                    w.writeInt64("customerId", o.accountId());
+                    Amounts.write(w, o.amount(), amountEncoding);
+                    OrderDictionaries.STATUSES.write(w, "status", o.status(), stringEncoding);
+                    OrderDictionaries.CURRENCIES.write(w, "currency", o.currency(), stringEncoding);
+                });
+    }
+}
@@ -1,17 +1,30 @@
 package com.fcannizzohz.samples.schemaevolution.serializers;
 
 import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
-import com.hazelcast.nio.serialization.FieldKind;
 import com.hazelcast.nio.serialization.compact.CompactReader;
 import com.hazelcast.nio.serialization.compact.CompactSerializer;
 import com.hazelcast.nio.serialization.compact.CompactWriter;
 
-import java.util.Optional;
-
 public final class OrderV2Serializer implements CompactSerializer<OrderV2> {
 
     // This should be externalised configuration
-    public static String DEFAULT_CURRENCY = "GBP";
+    public static final String DEFAULT_CURRENCY = "GBP";
+
+    private final AmountEncoding amountEncoding;
+    private final StringEncoding stringEncoding;
+
+    public OrderV2Serializer() {
+        this(AmountEncoding.DECIMAL);
+    }
+
+    public OrderV2Serializer(AmountEncoding amountEncoding) {
+        this(amountEncoding, StringEncoding.PLAIN);
+    }
+
+    public OrderV2Serializer(AmountEncoding amountEncoding, StringEncoding stringEncoding) {
+        this.amountEncoding = amountEncoding;
+        this.stringEncoding = stringEncoding;
+    }
 
     @Override
     public String getTypeName() {
@@ -27,25 +40,22 @@ public final class OrderV2Serializer implements CompactSerializer<OrderV2> {
     public void write(CompactWriter w, OrderV2 o) {
         w.writeInt64("id", o.id());
         w.writeInt64("customerId", o.customerId());
-        w.writeDecimal("amount", o.amount());
-        w.writeString("status", o.status());
-        w.writeString("currency", o.currency());
+        Amounts.write(w, o.amount(), amountEncoding);
+        OrderDictionaries.STATUSES.write(w, "status", o.status(), stringEncoding);
+        OrderDictionaries.CURRENCIES.write(w, "currency", o.currency(), stringEncoding);
     }
 
     @Override
     public OrderV2 read(CompactReader r) {
-        String currency = DEFAULT_CURRENCY;
-        if (r.getFieldKind("currency") == FieldKind.STRING) {
-            // this check fails if this record hasn't been written by this serializer
-            // it makes this serializer version aware, without being version specific
-            // we don't encode version specific logic here
-            currency = r.readString("currency");
-        }
+        // the default applies if this record hasn't been written by this serializer
+        // it makes this serializer version aware, without being version specific
+        // we don't encode version specific logic here
+        String currency = OrderDictionaries.CURRENCIES.read(r, "currency", DEFAULT_CURRENCY);
         return new OrderV2(
                 r.readInt64("id"),
                 r.readInt64("customerId"),
-                r.readDecimal("amount"),
-                r.readString("status"),
+                Amounts.read(r),
+                OrderDictionaries.STATUSES.read(r, "status", null),
                 currency
         );
     }
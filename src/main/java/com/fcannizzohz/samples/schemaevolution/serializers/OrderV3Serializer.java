@@ -1,11 +1,46 @@
 package com.fcannizzohz.samples.schemaevolution.serializers;
 
 import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.config.IndexConfig;
+import com.hazelcast.config.IndexType;
 import com.hazelcast.nio.serialization.compact.CompactReader;
 import com.hazelcast.nio.serialization.compact.CompactSerializer;
 import com.hazelcast.nio.serialization.compact.CompactWriter;
 
+import java.util.List;
+
 public final class OrderV3Serializer implements CompactSerializer<OrderV3> {
+
+    private final AmountEncoding amountEncoding;
+    private final StringEncoding stringEncoding;
+
+    public OrderV3Serializer() {
+        this(AmountEncoding.DECIMAL);
+    }
+
+    public OrderV3Serializer(AmountEncoding amountEncoding) {
+        this(amountEncoding, StringEncoding.PLAIN);
+    }
+
+    public OrderV3Serializer(AmountEncoding amountEncoding, StringEncoding stringEncoding) {
+        this.amountEncoding = amountEncoding;
+        this.stringEncoding = stringEncoding;
+    }
+
+    /**
+     * Indexes the {@code orders_v3} queries rely on, filtering by account and by status. The
+     * status is indexed in both encodings, the plain {@code status} field and the
+     * {@link StringEncoding#DICTIONARY} {@code statusCode}, so a map holding records of either
+     * is covered: query {@code status} for plain records and {@code statusCode} for coded ones.
+     */
+    public static List<IndexConfig> indexes() {
+        return List.of(
+                new IndexConfig(IndexType.HASH, "accountId").setName("orders_v3_accountId"),
+                new IndexConfig(IndexType.HASH, "status").setName("orders_v3_status"),
+                new IndexConfig(IndexType.HASH, "statusCode").setName("orders_v3_statusCode")
+        );
+    }
+
     @Override
     public String getTypeName() {
         return "com.acme.OrderV3"; // new typeName: new schema
@@ -20,9 +55,9 @@ public final class OrderV3Serializer implements CompactSerializer<OrderV3> {
     public void write(CompactWriter w, OrderV3 o) {
         w.writeInt64("id", o.id());
         w.writeInt64("accountId", o.accountId());
-        w.writeDecimal("amount", o.amount());
-        w.writeString("status", o.status());
-        w.writeString("currency", o.currency());
+        Amounts.write(w, o.amount(), amountEncoding);
+        OrderDictionaries.STATUSES.write(w, "status", o.status(), stringEncoding);
+        OrderDictionaries.CURRENCIES.write(w, "currency", o.currency(), stringEncoding);
     }
 
     @Override
@@ -30,9 +65,9 @@ public final class OrderV3Serializer implements CompactSerializer<OrderV3> {
         return new OrderV3(
                 r.readInt64("id"),
                 r.readInt64("accountId"),
-                r.readDecimal("amount"),
-                r.readString("status"),
-                r.readString("currency")
+                Amounts.read(r),
+                OrderDictionaries.STATUSES.read(r, "status", null),
+                OrderDictionaries.CURRENCIES.read(r, "currency", null)
         );
     }
 }
@@ -0,0 +1,127 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.fcannizzohz.samples.schemaevolution.model.Order;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.impl.clientside.HazelcastClientProxy;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.impl.compact.Schema;
+import com.hazelcast.internal.serialization.impl.compact.SchemaService;
+import com.hazelcast.internal.serialization.impl.compact.SchemaWriter;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Compact schemas a client registers before it is handed to the application, so that its first
+ * requests after a deploy don't wait on schema round trips.
+ * <p>
+ * A client sends the schema of a type to the cluster, and waits for it to be replicated, the
+ * first time it writes a value of that type; it fetches the schema of a record it reads the
+ * first time it meets it. The schemas a client writes are replicated during the warm-up
+ * instead. The schemas it only reads, those of the other versions of its types, are built
+ * from their serializers and registered locally, with no round trip at all: a schema is
+ * derived from the fields its serializer writes, so it is the same on every client.
+ * <p>
+ * Each schema is declared with its serializer and a sample value to write it with.
+ */
+public final class SchemaWarmup {
+
+    /**
+     * @param written schema ids replicated to the cluster
+     * @param read    schema ids registered on the client only
+     * @param elapsed time the warm-up took
+     */
+    public record Report(Set<Long> written, Set<Long> read, Duration elapsed) {
+
+        @Override
+        public String toString() {
+            return String.format("%d schemas replicated, %d registered locally in %.2f ms",
+                    written.size(), read.size(), elapsed.toNanos() / 1_000_000.0);
+        }
+    }
+
+    private record Declaration<T>(CompactSerializer<T> serializer, T sample) {
+
+        Schema schema() {
+            SchemaWriter writer = new SchemaWriter(serializer.getTypeName());
+            serializer.write(writer, sample);
+            return writer.build();
+        }
+    }
+
+    private final List<Declaration<?>> writes = new ArrayList<>();
+    private final List<Declaration<?>> reads = new ArrayList<>();
+
+    /** Warm-up of a client writing {@link OrderV2} and reading the V1 records still stored. */
+    public static SchemaWarmup forOrderV2Clients() {
+        return new SchemaWarmup()
+                .writes(new OrderV2Serializer(),
+                        new OrderV2(0, 0, BigDecimal.ZERO, "pending", OrderV2Serializer.DEFAULT_CURRENCY))
+                .reads(new OrderSerializer(), new Order(0, 0, BigDecimal.ZERO, "pending"));
+    }
+
+    /** Warm-up of a client of {@code orders_v3}. */
+    public static SchemaWarmup forOrderV3Clients() {
+        return new SchemaWarmup()
+                .writes(new OrderV3Serializer(), new OrderV3(0, 0, BigDecimal.ZERO, "pending", "USD"));
+    }
+
+    /** A serializer the client registers, whose schema is replicated during the warm-up. */
+    public <T> SchemaWarmup writes(CompactSerializer<T> serializer, T sample) {
+        writes.add(new Declaration<>(serializer, sample));
+        return this;
+    }
+
+    /** A serializer of other clients, whose schema this client only reads. */
+    public <T> SchemaWarmup reads(CompactSerializer<T> serializer, T sample) {
+        reads.add(new Declaration<>(serializer, sample));
+        return this;
+    }
+
+    /** Registers the serializers of the written schemas. */
+    public ClientConfig configure(ClientConfig config) {
+        writes.forEach(d -> config.getSerializationConfig().getCompactSerializationConfig().addSerializer(d.serializer()));
+        return config;
+    }
+
+    public HazelcastInstance newClient(ClientConfig config) {
+        return newClient(config, HazelcastClient::newHazelcastClient);
+    }
+
+    /** Starts a client with {@code factory} and returns it once its schemas are warmed up. */
+    public HazelcastInstance newClient(ClientConfig config, Function<ClientConfig, HazelcastInstance> factory) {
+        HazelcastInstance client = factory.apply(configure(config));
+        Report report = warmUp(client);
+        client.getLoggingService().getLogger(SchemaWarmup.class).info("Compact schemas warmed up: " + report);
+        return client;
+    }
+
+    /** Replicates the written schemas and registers the read ones on a client that is already running. */
+    public Report warmUp(HazelcastInstance client) {
+        long start = System.nanoTime();
+        SchemaService schemas = ((HazelcastClientProxy) client).client.getSchemaService();
+        Set<Long> written = new LinkedHashSet<>();
+        for (Declaration<?> d : writes) {
+            Schema schema = d.schema();
+            // returns once the cluster has the schema, as a first write would
+            schemas.put(schema);
+            written.add(schema.getSchemaId());
+        }
+        Set<Long> read = new LinkedHashSet<>();
+        for (Declaration<?> d : reads) {
+            Schema schema = d.schema();
+            schemas.putLocal(schema);
+            read.add(schema.getSchemaId());
+        }
+        return new Report(written, read, Duration.ofNanos(System.nanoTime() - start));
+    }
+}
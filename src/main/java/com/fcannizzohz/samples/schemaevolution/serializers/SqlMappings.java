@@ -0,0 +1,90 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Map.entry;
+
+/**
+ * Derives SQL mappings from Compact serializers, so that a mapping can't drift from the fields
+ * a serializer actually writes.
+ * <p>
+ * The serializer writes a sample object into a writer that only records the name and kind of
+ * each field. Fields whose presence depends on the value written are only mapped if the sample
+ * has them, so pass a representative sample. Nullable and non-nullable kinds map to the same
+ * SQL type; arrays and nested Compact objects have no column type and are rejected.
+ */
+public final class SqlMappings {
+
+    private static final Map<String, String> SQL_TYPES = Map.ofEntries(
+            entry("writeBoolean", "BOOLEAN"),
+            entry("writeInt8", "TINYINT"),
+            entry("writeInt16", "SMALLINT"),
+            entry("writeInt32", "INT"),
+            entry("writeInt64", "BIGINT"),
+            entry("writeFloat32", "REAL"),
+            entry("writeFloat64", "DOUBLE"),
+            entry("writeDecimal", "DECIMAL"),
+            entry("writeString", "VARCHAR"),
+            entry("writeDate", "DATE"),
+            entry("writeTime", "TIME"),
+            entry("writeTimestamp", "TIMESTAMP"),
+            entry("writeTimestampWithTimezone", "TIMESTAMP WITH TIME ZONE")
+    );
+
+    private SqlMappings() {
+    }
+
+    /** Columns written by the serializer for the sample, in write order, with their SQL types. */
+    public static <T> Map<String, String> columns(CompactSerializer<T> serializer, T sample) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        CompactWriter recorder = (CompactWriter) Proxy.newProxyInstance(CompactWriter.class.getClassLoader(),
+                new Class<?>[]{CompactWriter.class},
+                (proxy, method, args) -> {
+                    String type = SQL_TYPES.get(method.getName().replace("Nullable", ""));
+                    if (type == null) {
+                        throw new IllegalArgumentException("Field " + args[0] + " of " + serializer.getTypeName()
+                                + " has no SQL column type: written with " + method.getName());
+                    }
+                    columns.put((String) args[0], type);
+                    return null;
+                });
+        serializer.write(recorder, sample);
+        return columns;
+    }
+
+    /**
+     * {@code CREATE OR REPLACE MAPPING} of a map whose values are written by the serializer, named
+     * after the map: it replaces any mapping of that name.
+     */
+    public static <T> String createMapping(String mapName, String keyFormat, CompactSerializer<T> serializer, T sample) {
+        return createMapping(mapName, mapName, keyFormat, serializer, sample);
+    }
+
+    /**
+     * {@code CREATE OR REPLACE MAPPING} named {@code mappingName} of the map {@code mapName}, whose
+     * values are written by the serializer. A tool can map a map under its own name this way,
+     * without replacing the mapping the application created for it.
+     */
+    public static <T> String createMapping(String mappingName, String mapName, String keyFormat,
+                                           CompactSerializer<T> serializer, T sample) {
+        String columns = columns(serializer, sample).entrySet().stream()
+                                                    .map(c -> "    " + c.getKey() + " " + c.getValue())
+                                                    .collect(Collectors.joining(",\n"));
+        String externalName = mappingName.equals(mapName) ? "" : " EXTERNAL NAME " + mapName;
+        return "CREATE OR REPLACE MAPPING " + mappingName + externalName + " (\n"
+                + columns + "\n"
+                + ")\n"
+                + "TYPE IMap\n"
+                + "OPTIONS (\n"
+                + "    'keyFormat' = '" + keyFormat + "',\n"
+                + "    'valueFormat' = 'compact',\n"
+                + "    'valueCompactTypeName' = '" + serializer.getTypeName() + "'\n"
+                + ");\n";
+    }
+}
@@ -0,0 +1,19 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+/**
+ * How the serializers store the low-cardinality {@code status} and {@code currency} fields.
+ * <p>
+ * Readers accept both, see {@link ValueDictionary}.
+ */
+public enum StringEncoding {
+
+    /** Plain {@code status} and {@code currency} strings, readable by every serializer version. */
+    PLAIN,
+
+    /**
+     * {@code statusCode} and {@code currencyCode} dictionary codes, with the text kept in
+     * {@code statusText} and {@code currencyText} only for values missing from the dictionary.
+     * Readers that only know the plain fields fail on these records: switch to it once none is left.
+     */
+    DICTIONARY
+}
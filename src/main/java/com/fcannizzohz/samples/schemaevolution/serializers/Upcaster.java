@@ -0,0 +1,15 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+/**
+ * One version step of a Compact type, such as a field added with a default or a field
+ * renamed, described as a change to the {@link FieldSources} of a stored schema.
+ * <p>
+ * Upcasters run in version order when a read plan is resolved, once per schema. A step must
+ * leave schemas that already have its changes untouched, so the same chain resolves records
+ * of every version.
+ */
+@FunctionalInterface
+public interface Upcaster {
+
+    void upcast(FieldSources sources);
+}
@@ -0,0 +1,122 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.hazelcast.internal.serialization.impl.compact.CompactInternalGenericRecord;
+import com.hazelcast.internal.serialization.impl.compact.FieldDescriptor;
+import com.hazelcast.internal.serialization.impl.compact.Schema;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.serialization.FieldKind;
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Serializer that reads every stored version of a Compact type into one canonical model.
+ * <p>
+ * The first record of each schema resolves a read plan: the {@link Upcaster}s are applied in
+ * version order to the schema's {@link FieldSources}, and the planner turns them into a
+ * reader with every field name, encoding and default already chosen. Plans are cached by
+ * schema id, so every later record of that schema is read with straight field reads and no
+ * {@code getFieldKind} calls.
+ * <p>
+ * The schema comes from Hazelcast's internal reader class. If a reader of another class is
+ * passed, for example after an upgrade changed it, the plan is resolved again for every record:
+ * still correct, but slower. Such reads are counted by {@link #uncachedReads()} and the first one
+ * is logged.
+ * <p>
+ * Records are written with the given writer, which should keep the layout the other readers
+ * of the type name understand.
+ */
+public final class UpcastingSerializer<T> implements CompactSerializer<T> {
+
+    /** Reads a record of the schema the plan was resolved for. */
+    @FunctionalInterface
+    public interface ReadPlan<T> {
+        T read(CompactReader reader);
+    }
+
+    private record CachedPlan<T>(long schemaId, ReadPlan<T> plan) {
+    }
+
+    private final String typeName;
+    private final Class<T> compactClass;
+    private final List<Upcaster> upcasters;
+    private final Function<FieldSources, ReadPlan<T>> planner;
+    private final BiConsumer<CompactWriter, T> writer;
+    private final ConcurrentMap<Long, ReadPlan<T>> plans = new ConcurrentHashMap<>();
+    private final LongAdder uncachedReads = new LongAdder();
+    // a map rarely holds more than a couple of schemas: the last one saves the map lookup
+    private volatile CachedPlan<T> last;
+
+    public UpcastingSerializer(String typeName, Class<T> compactClass, List<Upcaster> upcasters,
+                               Function<FieldSources, ReadPlan<T>> planner, BiConsumer<CompactWriter, T> writer) {
+        this.typeName = typeName;
+        this.compactClass = compactClass;
+        this.upcasters = List.copyOf(upcasters);
+        this.planner = planner;
+        this.writer = writer;
+    }
+
+    @Override
+    public String getTypeName() {
+        return typeName;
+    }
+
+    @Override
+    public Class<T> getCompactClass() {
+        return compactClass;
+    }
+
+    @Override
+    public void write(CompactWriter w, T object) {
+        writer.accept(w, object);
+    }
+
+    @Override
+    public T read(CompactReader r) {
+        if (!(r instanceof CompactInternalGenericRecord record)) {
+            // no schema to key the cache on: resolve against this record alone
+            uncachedReads.increment();
+            if (uncachedReads.sum() == 1) {
+                Logger.getLogger(UpcastingSerializer.class).warning("Read plans of " + typeName
+                        + " can't be cached for readers of " + r.getClass().getName() + ": resolving one per record");
+            }
+            return resolve(r::getFieldKind).read(r);
+        }
+        Schema schema = record.getSchema();
+        CachedPlan<T> cached = last;
+        if (cached == null || cached.schemaId() != schema.getSchemaId()) {
+            ReadPlan<T> plan = plans.computeIfAbsent(schema.getSchemaId(), id -> resolve(name -> kindOf(schema, name)));
+            cached = new CachedPlan<>(schema.getSchemaId(), plan);
+            last = cached;
+        }
+        return cached.plan().read(r);
+    }
+
+    /** Number of schemas a read plan has been resolved for. */
+    public int resolvedPlans() {
+        return plans.size();
+    }
+
+    /** Number of records read without a cached plan, because the reader exposed no schema. */
+    public long uncachedReads() {
+        return uncachedReads.sum();
+    }
+
+    private ReadPlan<T> resolve(Function<String, FieldKind> storedKinds) {
+        FieldSources sources = new FieldSources(storedKinds);
+        upcasters.forEach(u -> u.upcast(sources));
+        return planner.apply(sources);
+    }
+
+    private static FieldKind kindOf(Schema schema, String name) {
+        FieldDescriptor field = schema.getField(name);
+        return field == null ? FieldKind.NOT_AVAILABLE : field.getKind();
+    }
+}
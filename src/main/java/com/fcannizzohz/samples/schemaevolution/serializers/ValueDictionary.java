@@ -0,0 +1,148 @@
+package com.fcannizzohz.samples.schemaevolution.serializers;
+
+import com.hazelcast.nio.serialization.FieldKind;
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecord;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecordBuilder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only dictionary of the values of a low-cardinality string field.
+ * <p>
+ * A value's code is its position, so codes never change: a dictionary is evolved with
+ * {@link #extend(String...)}, and its {@link #version()} is the number of values it holds.
+ * A record that carries a code beyond a reader's version was written with a newer dictionary
+ * and fails to read instead of decoding to a wrong value.
+ * <p>
+ * Values read back, coded or not, are the dictionary's own instances whenever the dictionary
+ * knows them, so a client holding many orders retains one {@code String} per distinct value.
+ */
+public final class ValueDictionary {
+
+    static final String CODE_SUFFIX = "Code";
+    static final String TEXT_SUFFIX = "Text";
+    private static final int NO_CODE = -1;
+
+    private final String[] values;
+    private final Map<String, Integer> codes;
+
+    private ValueDictionary(String[] values) {
+        this.values = values;
+        this.codes = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values[i].intern();
+            if (codes.putIfAbsent(values[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate dictionary value: " + values[i]);
+            }
+        }
+    }
+
+    public static ValueDictionary of(String... values) {
+        return new ValueDictionary(values.clone());
+    }
+
+    /** A newer version of this dictionary: existing codes are kept, the new values are appended. */
+    public ValueDictionary extend(String... newValues) {
+        String[] extended = Arrays.copyOf(values, values.length + newValues.length);
+        System.arraycopy(newValues, 0, extended, values.length, newValues.length);
+        return new ValueDictionary(extended);
+    }
+
+    public int version() {
+        return values.length;
+    }
+
+    /** The dictionary's instance of the value if it knows it, the value itself otherwise. */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = codes.get(value);
+        return code == null ? value : values[code];
+    }
+
+    String decode(int code) {
+        if (code < 0 || code >= values.length) {
+            throw new HazelcastSerializationException("Dictionary code " + code + " is unknown to dictionary version "
+                    + values.length + ": the record was written with a newer dictionary");
+        }
+        return values[code];
+    }
+
+    /** The value's code, or -1 if the dictionary doesn't know it. */
+    public int codeOf(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? NO_CODE : code;
+    }
+
+    public void write(CompactWriter w, String field, String value, StringEncoding encoding) {
+        if (encoding == StringEncoding.PLAIN) {
+            w.writeString(field, value);
+            return;
+        }
+        int code = codeOf(value);
+        w.writeInt32(field + CODE_SUFFIX, code);
+        // the text only takes space for values the dictionary doesn't know
+        w.writeString(field + TEXT_SUFFIX, code == NO_CODE ? value : null);
+    }
+
+    /** Reads the field in whichever encoding it was written, or returns the default if the record has neither. */
+    public String read(CompactReader r, String field, String defaultValue) {
+        String codeField = field + CODE_SUFFIX;
+        if (r.getFieldKind(codeField) == FieldKind.INT32) {
+            int code = r.readInt32(codeField);
+            return code == NO_CODE ? canonical(r.readString(field + TEXT_SUFFIX)) : decode(code);
+        }
+        if (r.getFieldKind(field) == FieldKind.STRING) {
+            return canonical(r.readString(field));
+        }
+        return defaultValue;
+    }
+
+    /**
+     * {@link #read} with the encoding resolved once for the schema the sources describe; the
+     * default is the sources' default for the field.
+     */
+    public UpcastingSerializer.ReadPlan<String> plan(FieldSources sources, String field) {
+        String name = sources.name(field);
+        String codeField = name + CODE_SUFFIX;
+        if (sources.kind(codeField) == FieldKind.INT32) {
+            String textField = name + TEXT_SUFFIX;
+            return r -> {
+                int code = r.readInt32(codeField);
+                return code == NO_CODE ? canonical(r.readString(textField)) : decode(code);
+            };
+        }
+        if (sources.kind(field) == FieldKind.STRING) {
+            return r -> canonical(r.readString(name));
+        }
+        String defaultValue = sources.defaultValue(field);
+        return r -> defaultValue;
+    }
+
+    public GenericRecordBuilder set(GenericRecordBuilder b, String field, String value, StringEncoding encoding) {
+        if (encoding == StringEncoding.PLAIN) {
+            return b.setString(field, value);
+        }
+        int code = codeOf(value);
+        return b.setInt32(field + CODE_SUFFIX, code)
+                .setString(field + TEXT_SUFFIX, code == NO_CODE ? value : null);
+    }
+
+    public String get(GenericRecord r, String field, String defaultValue) {
+        String codeField = field + CODE_SUFFIX;
+        if (r.getFieldKind(codeField) == FieldKind.INT32) {
+            int code = r.getInt32(codeField);
+            return code == NO_CODE ? canonical(r.getString(field + TEXT_SUFFIX)) : decode(code);
+        }
+        if (r.getFieldKind(field) == FieldKind.STRING) {
+            return canonical(r.getString(field));
+        }
+        return defaultValue;
+    }
+}
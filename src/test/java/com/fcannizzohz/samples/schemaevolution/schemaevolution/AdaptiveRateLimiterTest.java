@@ -0,0 +1,75 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.AdaptiveRateLimiter;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveRateLimiterTest {
+
+    // latency the stub probe reports for every live operation it times
+    private long probeNanos;
+    private final AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(() -> probeNanos, 1_000, 5);
+
+    @Test
+    public void test_Rate_Halves_Over_Target_And_Climbs_Back_Under_It() {
+        assertEquals(1_000, limiter.rate(), 0.0);
+
+        // 20 ms per live operation against a 5 ms target: multiplicative decrease
+        probeNanos = MILLISECONDS.toNanos(20);
+        limiter.adjust();
+        assertEquals(500, limiter.rate(), 0.0);
+        limiter.adjust();
+        assertEquals(250, limiter.rate(), 0.0);
+
+        // 1 ms per operation: additive increase, a twentieth of the cap per adjustment
+        probeNanos = MILLISECONDS.toNanos(1);
+        limiter.adjust();
+        assertEquals(300, limiter.rate(), 0.0);
+        for (int i = 0; i < 20; i++) {
+            limiter.adjust();
+        }
+        // never above the cap
+        assertEquals(1_000, limiter.rate(), 0.0);
+    }
+
+    @Test
+    public void test_Rate_Compares_SubMillisecond_Latencies() {
+        AdaptiveRateLimiter strict = new AdaptiveRateLimiter(() -> probeNanos, 1_000, 0.5);
+
+        // 600 µs against a 0.5 ms target: whole milliseconds would have rounded it to 0
+        probeNanos = MICROSECONDS.toNanos(600);
+        strict.adjust();
+        assertEquals(500, strict.rate(), 0.0);
+
+        probeNanos = MICROSECONDS.toNanos(400);
+        strict.adjust();
+        assertEquals(550, strict.rate(), 0.0);
+    }
+
+    @Test
+    public void test_Rate_Ignores_A_Single_Stalled_Probe() {
+        // one probe of the adjustment is stalled, the others are fast: the median is under the target
+        long[] probes = {MILLISECONDS.toNanos(100), 1_000, 1_000, 1_000, 1_000};
+        int[] next = {0};
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(() -> probes[next[0]++ % probes.length], 1_000, 5);
+        limiter.adjust();
+        assertEquals(1_000, limiter.rate(), 0.0);
+    }
+
+    @Test
+    public void test_Rate_Stays_Above_The_Floor() {
+        probeNanos = MILLISECONDS.toNanos(100);
+        for (int i = 0; i < 20; i++) {
+            limiter.adjust();
+        }
+        assertEquals(10, limiter.rate(), 0.0);
+
+        // fast again: grows back
+        probeNanos = 0;
+        limiter.adjust();
+        assertEquals(60, limiter.rate(), 0.0);
+    }
+}
@@ -0,0 +1,201 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.BackfillThenTailP;
+import com.fcannizzohz.samples.schemaevolution.migration.JournalOverflowPolicy;
+import com.fcannizzohz.samples.schemaevolution.migration.MigrationMetrics;
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EventJournalConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.JobStatus;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.map.IMap;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.hazelcast.test.HazelcastTestSupport.assertEqualsEventually;
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class BackfillThenTailTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        // enables journal in orders map
+        EventJournalConfig jConf = new EventJournalConfig();
+        jConf.setEnabled(true);
+        // room for the writes made while the job copies the map: the default policy fails the job once events are lost
+        jConf.setCapacity(100_000);
+        config.getMapConfig("orders").setEventJournalConfig(jConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_BackfillThenTail_Converges_UnderLiveLoad() {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < 2_000; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("backfill-then-tail-v2-to-v3")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job;
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            // keeps updating, deleting and inserting orders while the job captures offsets and copies the map
+            executor.submit(() -> {
+                for (long i = 0; i < 20_000; i++) {
+                    long id = i % 3_000;
+                    if (i % 7 == 0) {
+                        orders.delete(id);
+                    } else {
+                        orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(i), "status-" + i, "USD"));
+                    }
+                }
+            });
+            job = instance.getJet().newJob(V2toV3PipelineFactory.createBackfillThenTailPipeline(), cfg);
+        }
+
+        assertTrueEventually(() -> {
+            assertEquals(orders.size(), ordersV3.size());
+            for (Map.Entry<Long, OrderV2> e : orders.entrySet()) {
+                OrderV3 v3 = ordersV3.get(e.getKey());
+                assertNotNull("missing " + e.getKey(), v3);
+                assertEquals(e.getValue().customerId(), v3.accountId());
+                assertEquals(e.getValue().status(), v3.status());
+            }
+        });
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void test_BackfillThenTail_Copies_EachPartitionOnce_OnItsOwner() {
+        HazelcastInstance second = hazelcastFactory.newHazelcastInstance(instance.getConfig());
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < 2_000; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("backfill-then-tail-two-members")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createBackfillThenTailPipeline(), cfg);
+
+        // the members split the partitions between them: each is copied and followed exactly once
+        int partitionCount = instance.getPartitionService().getPartitions().size();
+        assertTrueEventually(() -> assertTrue(MigrationMetrics.isBackfilled(instance, job)));
+        assertEquals(partitionCount, MigrationMetrics.total(job, MigrationMetrics.PARTITIONS_TOTAL));
+        assertTrueEventually(() -> assertEquals(2_000, ordersV3.size()));
+
+        orders.set(0L, new OrderV2(0L, 1000L, BigDecimal.ONE, "paid", "USD"));
+        orders.delete(1L);
+        assertTrueEventually(() -> {
+            assertEquals("paid", ordersV3.get(0L).status());
+            assertEquals(1_999, ordersV3.size());
+        });
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+        second.shutdown();
+    }
+
+    @Test
+    public void test_BackfillThenTail_Rebackfills_OverflowedPartitions() {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < 2_000; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("backfill-then-tail-rebackfill")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE)
+                .setSnapshotIntervalMillis(500);
+        Pipeline pipeline = V2toV3PipelineFactory.createBackfillThenTailPipeline(JournalOverflowPolicy.REBACKFILL,
+                BackfillThenTailP.DEFAULT_LAG_THRESHOLD);
+        Job job = instance.getJet().newJob(pipeline, cfg);
+        assertTrueEventually(() -> assertEquals(2_000, ordersV3.size()));
+
+        // while the job is suspended the journal overflows: the deletes are overwritten by the updates
+        job.suspend();
+        assertEqualsEventually(job::getStatus, JobStatus.SUSPENDED);
+        for (long id = 0; id < 200; id++) {
+            orders.delete(id);
+        }
+        for (long i = 0; i < 150_000; i++) {
+            long id = 200 + i % 1_800;
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(i), "status-" + i, "USD"));
+        }
+        job.resume();
+
+        assertTrueEventually(() -> {
+            assertEquals(1_800, ordersV3.size());
+            for (Map.Entry<Long, OrderV2> e : orders.entrySet()) {
+                assertEquals(e.getValue().status(), ordersV3.get(e.getKey()).status());
+            }
+        });
+        assertTrueEventually(() -> assertTrue(MigrationMetrics.total(job, MigrationMetrics.REBACKFILLS) > 0));
+        // every partition publishes its own lag
+        int partitionCount = instance.getPartitionService().getPartitions().size();
+        assertTrueEventually(() -> assertEquals(partitionCount, MigrationMetrics.journalLagByPartition(job).size()));
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.AccountIdTranslator;
+import com.fcannizzohz.samples.schemaevolution.migration.AdaptiveRateLimiter;
+import com.fcannizzohz.samples.schemaevolution.migration.MigratingIMap;
+import com.fcannizzohz.samples.schemaevolution.migration.MigrationFilters;
+import com.fcannizzohz.samples.schemaevolution.migration.MigrationMetrics;
+import com.fcannizzohz.samples.schemaevolution.migration.MigrationProgress;
+import com.fcannizzohz.samples.schemaevolution.migration.SqlMigration;
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.Order;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.AmountEncoding;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderSerializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.SqlMappings;
+import com.fcannizzohz.samples.schemaevolution.serializers.StringEncoding;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.JobStatus;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.sql.HazelcastSqlException;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hazelcast.test.HazelcastTestSupport.assertEqualsEventually;
+import static com.hazelcast.test.HazelcastTestSupport.assertSizeEventually;
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class BulkMigrationTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_BulkMigration_Reports_Metrics() {
+        for (long id = 0; id < 100; id++) {
+            instance.getMap("orders").set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("bulk-v2-to-v3-metrics")
+                .setStoreMetricsAfterJobCompletion(true);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createBulkPipeline(), cfg);
+        job.join();
+
+        assertEquals(100, MigrationMetrics.total(job, MigrationMetrics.MAPPED));
+        assertEquals(100, MigrationMetrics.total(job, MigrationMetrics.UPSERTS));
+        long histogramTotal = MigrationMetrics.transformLatencyHistogram(job).values().stream()
+                                              .mapToLong(Long::longValue)
+                                              .sum();
+        assertEquals(100, histogramTotal);
+    }
+
+    @Test
+    public void test_DataMigrated_InBulk_AsGenericRecords() {
+        // the members have no serializers: only the clients know about OrderV2 and OrderV3
+        HazelcastInstance v2Client = getClientWithSerializer(new OrderV2Serializer());
+        HazelcastInstance v3Client = getClientWithSerializer(new OrderV3Serializer());
+
+        OrderV2 o1 = new OrderV2(1, 123L, BigDecimal.valueOf(100), "pending", "USD");
+        OrderV2 o2 = new OrderV2(2, 456L, BigDecimal.valueOf(200), "pending", "EUR");
+        v2Client.getMap("orders").put(o1.id(), o1);
+        v2Client.getMap("orders").put(o2.id(), o2);
+
+        JobConfig cfg = new JobConfig()
+                .setName("generic-bulk-v2-to-v3")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        instance.getJet().newJob(V2toV3PipelineFactory.createGenericBulkPipeline(), cfg).join();
+
+        IMap<Long, OrderV3> ordersV3 = v3Client.getMap("orders_v3");
+        assertSizeEventually(2, ordersV3);
+
+        OrderV3 ov3_1 = ordersV3.get(o1.id());
+        OrderV3 ov3_2 = ordersV3.get(o2.id());
+
+        assertEquals(o1.customerId(), ov3_1.accountId());
+        assertEquals(o1.amount(), ov3_1.amount());
+        assertEquals(o2.customerId(), ov3_2.accountId());
+        assertEquals(o2.currency(), ov3_2.currency());
+    }
+
+    @Test
+    public void test_DataMigrated_InBulk_WithSQL() {
+        HazelcastInstance v1Client = getClientWithSerializer(new OrderSerializer());
+        HazelcastInstance v2Client = getClientWithSerializer(new OrderV2Serializer());
+        HazelcastInstance v3Client = getClientWithSerializer(new OrderV3Serializer());
+
+        Order o1 = new Order(1, 123L, new BigDecimal("100.50"), "pending");
+        OrderV2 o2 = new OrderV2(2, 456L, new BigDecimal("200.25"), "ready", "EUR");
+        v1Client.getMap("orders").put(o1.id(), o1);
+        v2Client.getMap("orders").put(o2.id(), o2);
+        // the application's own mapping of orders, without currency
+        v1Client.getSql().execute(SqlMappings.createMapping("orders", "bigint", new OrderSerializer(), o1)).close();
+
+        SqlMigration.run(v3Client);
+
+        // the migration mapped the maps under its own names: the application's mapping is unchanged
+        assertThrows(HazelcastSqlException.class, () -> v1Client.getSql().execute("SELECT currency FROM orders").close());
+
+        IMap<Long, OrderV3> ordersV3 = v3Client.getMap("orders_v3");
+        assertEquals(2, ordersV3.size());
+        assertEquals(new OrderV3(1, 123L, new BigDecimal("100.50"), "pending", OrderV2Serializer.DEFAULT_CURRENCY),
+                ordersV3.get(o1.id()));
+        assertEquals(new OrderV3(2, 456L, new BigDecimal("200.25"), "ready", "EUR"), ordersV3.get(o2.id()));
+    }
+
+    @Test
+    public void test_ThrottledBulkMigration_Completes_UnderForegroundLoad() throws Exception {
+        int count = 5_000;
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        for (long id = 0; id < count; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("throttled-bulk-v2-to-v3")
+                .setArgument(AdaptiveRateLimiter.MAX_RECORDS_PER_SECOND, 2_000)
+                .setArgument(AdaptiveRateLimiter.TARGET_LATENCY_MILLIS, 1);
+        AtomicBoolean migrating = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            // foreground workload on the live map for as long as the migration runs
+            Future<Long> foreground = executor.submit(() -> {
+                long operations = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (migrating.get()) {
+                    long id = random.nextLong(count);
+                    orders.get(id);
+                    orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "ready", "USD"));
+                    operations += 2;
+                }
+                return operations;
+            });
+
+            Job job = instance.getJet().newJob(V2toV3PipelineFactory.createThrottledBulkPipeline(), cfg);
+            job.join();
+            migrating.set(false);
+            assertTrue(foreground.get() > 0);
+        }
+
+        assertEquals(count, instance.getMap("orders_v3").size());
+    }
+
+    @Test
+    public void test_ResumableBulkMigration_Copies_OnlyTheRemainder() {
+        int count = 5_000;
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < count; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        // throttled, so that the job can be stopped halfway through
+        JobConfig cfg = new JobConfig()
+                .setName("resumable-bulk-v2-to-v3")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE)
+                .setStoreMetricsAfterJobCompletion(true)
+                .setArgument(AdaptiveRateLimiter.MAX_RECORDS_PER_SECOND, 1_000);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createResumableBulkPipeline(), cfg);
+        assertTrueEventually(() -> assertTrue(ordersV3.size() > count / 4));
+
+        // suspending takes a terminal snapshot, as a graceful shutdown of the job would
+        job.suspend();
+        assertEqualsEventually(job::getStatus, JobStatus.SUSPENDED);
+        int copiedBefore = ordersV3.size();
+        assertTrue(copiedBefore < count);
+
+        job.resume();
+        job.join();
+
+        assertEquals(count, ordersV3.size());
+        // metrics restart with the execution: they only count what the resumed run copied
+        long copiedAfter = MigrationMetrics.total(job, MigrationMetrics.MAPPED);
+        assertTrue("copied " + copiedAfter + " of " + count + " after resuming", copiedAfter < count);
+        MigrationProgress progress = MigrationMetrics.progress(job);
+        assertEquals(100.0, progress.percentComplete(), 0.0);
+        assertEquals(0, progress.remainingMillis());
+    }
+
+    @Test
+    public void test_MoveMigration_Keeps_EntriesAndMemory_Flat() throws Exception {
+        int count = 5_000;
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < count; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+        long datasetCost = orders.getLocalMapStats().getOwnedEntryMemoryCost();
+
+        // throttled, so that the maps can be sampled halfway through
+        JobConfig cfg = new JobConfig()
+                .setName("move-v2-to-v3")
+                .setStoreMetricsAfterJobCompletion(true)
+                .setArgument(AdaptiveRateLimiter.MAX_RECORDS_PER_SECOND, 2_000);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createMovePipeline(), cfg);
+        try (MigratingIMap<Long, OrderV2, OrderV3> view = MigratingIMap.forOrders(instance)) {
+            int samples = 0;
+            while (!job.getStatus().isTerminal()) {
+                // at most the moves in flight are in both maps at once
+                assertTrue(orders.size() + ordersV3.size() <= count + 100);
+                long cost = orders.getLocalMapStats().getOwnedEntryMemoryCost()
+                        + ordersV3.getLocalMapStats().getOwnedEntryMemoryCost();
+                assertTrue("memory cost " + cost + " vs " + datasetCost, cost <= datasetCost * 1.05);
+                // every key is found in one map or the other
+                assertNotNull(view.get(ThreadLocalRandom.current().nextLong(count)));
+                samples++;
+                Thread.sleep(20);
+            }
+            job.join();
+            assertTrue(samples > 10);
+        }
+
+        assertEquals(0, orders.size());
+        assertEquals(count, ordersV3.size());
+        assertTrue(MigrationMetrics.total(job, MigrationMetrics.MOVED) > 0);
+    }
+
+    @Test
+    public void test_TranslatingMigration_Resolves_AccountIds_ThroughLookupMap() {
+        // one account per ten customers, for customers 0 to 99 999: 100 000 to 109 999
+        IMap<Long, Long> lookup = instance.getMap(AccountIdTranslator.CUSTOMER_ACCOUNTS);
+        Map<Long, Long> batch = new HashMap<>();
+        for (long customerId = 0; customerId < 100_000; customerId++) {
+            batch.put(customerId, 100_000 + customerId / 10);
+            if (batch.size() == 10_000) {
+                lookup.putAll(batch);
+                batch.clear();
+            }
+        }
+        lookup.putAll(batch);
+
+        // 50 000 orders from 2 000 customers, the last 100 of which have no account
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        Map<Long, OrderV2> orderBatch = new HashMap<>();
+        for (long id = 0; id < 50_000; id++) {
+            long customerId = 98_100 + id % 2_000;
+            orderBatch.put(id, new OrderV2(id, customerId, BigDecimal.valueOf(id), "pending", "USD"));
+            if (orderBatch.size() == 10_000) {
+                orders.putAll(orderBatch);
+                orderBatch.clear();
+            }
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("translating-bulk-v2-to-v3")
+                .setStoreMetricsAfterJobCompletion(true);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createTranslatingBulkPipeline(
+                AccountIdTranslator.serviceFactory()), cfg);
+        job.join();
+
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        assertEquals(50_000, ordersV3.size());
+        for (Map.Entry<Long, OrderV3> e : ordersV3.entrySet()) {
+            long customerId = orders.get(e.getKey()).customerId();
+            long expected = customerId < 100_000 ? 100_000 + customerId / 10 : customerId;
+            assertEquals(expected, e.getValue().accountId());
+        }
+        // a customer is looked up by the batches in flight when it is first seen, then served from the cache
+        double hitRate = MigrationMetrics.idCacheHitRate(job);
+        assertTrue("hit rate " + hitRate, hitRate > 0.5);
+    }
+
+    @Test
+    public void test_FilteredMigration_Splits_Orders_Into_MigratedAndArchived() {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        for (long id = 0; id < 100; id++) {
+            String status = id % 4 == 0 ? MigrationFilters.ARCHIVED_STATUS : "pending";
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), status, "USD"));
+        }
+
+        Predicate<Long, OrderV2> filter = Predicates.and(MigrationFilters.notArchived(), MigrationFilters.idAbove(49));
+        instance.getJet().newJob(V2toV3PipelineFactory.createFilteredBulkPipeline(filter)).join();
+        instance.getJet().newJob(V2toV3PipelineFactory.createArchivePipeline(filter)).join();
+
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        IMap<Long, OrderV2> archive = instance.getMap(V2toV3PipelineFactory.ORDERS_ARCHIVE);
+        // ids 50 to 99, less the archived ones
+        assertEquals(38, ordersV3.size());
+        assertEquals(62, archive.size());
+        for (long id = 0; id < 100; id++) {
+            boolean migrated = id > 49 && id % 4 != 0;
+            assertEquals("order " + id, migrated, ordersV3.containsKey(id));
+            assertEquals("order " + id, !migrated, archive.containsKey(id));
+        }
+        assertEquals(orders.get(0L), archive.get(0L));
+        assertEquals(1050L, ordersV3.get(50L).accountId());
+    }
+
+    @Test
+    public void test_FilteredMigration_Skips_DictionaryEncoded_Archived() {
+        // the job reads OrderV2 on the member, so it needs the serializer that decodes dictionary codes
+        Config config = instance.getConfig();
+        config.getSerializationConfig().getCompactSerializationConfig().addSerializer(new OrderV2Serializer());
+        instance.shutdown();
+        instance = hazelcastFactory.newHazelcastInstance(config);
+
+        // plain and coded records side by side
+        IMap<Long, OrderV2> plainOrders = instance.getMap("orders");
+        plainOrders.set(100L, new OrderV2(100L, 1100L, BigDecimal.ONE, MigrationFilters.ARCHIVED_STATUS, "USD"));
+        plainOrders.set(101L, new OrderV2(101L, 1101L, BigDecimal.ONE, "pending", "USD"));
+        HazelcastInstance codedClient = getClientWithSerializer(
+                new OrderV2Serializer(AmountEncoding.DECIMAL, StringEncoding.DICTIONARY));
+        IMap<Long, OrderV2> orders = codedClient.getMap("orders");
+        for (long id = 0; id < 100; id++) {
+            String status = id % 4 == 0 ? MigrationFilters.ARCHIVED_STATUS : "pending";
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), status, "USD"));
+        }
+
+        instance.getJet().newJob(V2toV3PipelineFactory.createFilteredBulkPipeline(MigrationFilters.notArchived())).join();
+
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        // statusCode matched the archived ones written as codes, status the plain one
+        assertEquals(76, ordersV3.size());
+        for (long id = 0; id < 102; id++) {
+            assertEquals("order " + id, id % 4 != 0, ordersV3.containsKey(id));
+        }
+    }
+
+    private HazelcastInstance getClientWithSerializer(CompactSerializer<?> ser) {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setClusterName(instance.getConfig().getClusterName());
+        clientConfig.getSerializationConfig()
+                    .getCompactSerializationConfig()
+                    .addSerializer(ser);
+        return hazelcastFactory.newHazelcastClient(clientConfig);
+    }
+}
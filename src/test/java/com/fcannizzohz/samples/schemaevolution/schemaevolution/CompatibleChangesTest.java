@@ -1,13 +1,29 @@
 package com.fcannizzohz.samples.schemaevolution.schemaevolution;
 
+import com.fcannizzohz.samples.schemaevolution.codegen.EncodedWith;
+import com.fcannizzohz.samples.schemaevolution.codegen.FieldAlias;
+import com.fcannizzohz.samples.schemaevolution.codegen.FieldDefault;
+import com.fcannizzohz.samples.schemaevolution.codegen.TypeName;
 import com.fcannizzohz.samples.schemaevolution.model.Order;
 import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.AmountEncoding;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderCompactSerializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderDictionaries;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderFieldCodecs;
 import com.fcannizzohz.samples.schemaevolution.serializers.OrderSerializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderUpcasters;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2CompactSerializer;
 import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.SchemaWarmup;
+import com.fcannizzohz.samples.schemaevolution.serializers.StringEncoding;
+import com.fcannizzohz.samples.schemaevolution.serializers.UpcastingSerializer;
 import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.impl.clientside.HazelcastClientProxy;
 import com.hazelcast.client.test.TestHazelcastFactory;
 import com.hazelcast.config.Config;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.impl.compact.SchemaService;
 import com.hazelcast.map.IMap;
 import com.hazelcast.nio.serialization.compact.CompactSerializer;
 import org.junit.AfterClass;
@@ -16,15 +32,32 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
 
 import static com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer.DEFAULT_CURRENCY;
+import static com.hazelcast.test.Accessors.getNodeEngineImpl;
 import static com.hazelcast.test.HazelcastTestSupport.randomName;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class CompatibleChangesTest {
 
+    /** V3 shape read straight from {@code com.acme.Order} records by a generated serializer. */
+    @TypeName("com.acme.Order")
+    record OrderAsV3(
+            long id,
+            @FieldAlias("customerId") long accountId,
+            @EncodedWith(OrderFieldCodecs.Amount.class) BigDecimal amount,
+            @EncodedWith(OrderFieldCodecs.Status.class) String status,
+            @FieldDefault(DEFAULT_CURRENCY) @EncodedWith(OrderFieldCodecs.Currency.class) String currency) {}
+
     private static TestHazelcastFactory hazelcastFactory;
     private String clusterName;
+    private HazelcastInstance member;
 
     @BeforeClass
     public static void beforeClass() {
@@ -37,7 +70,7 @@ public class CompatibleChangesTest {
         clusterName = randomName();
         config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
         config.setClusterName(clusterName);
-        hazelcastFactory.newHazelcastInstance(config);
+        member = hazelcastFactory.newHazelcastInstance(config);
     }
 
     @AfterClass
@@ -78,6 +111,185 @@ public class CompatibleChangesTest {
         assertEquals(DEFAULT_CURRENCY, orderV2.currency());
     }
 
+    @Test
+    public void test_ClientCanRead_FixedPointAmount() {
+
+        HazelcastInstance clientInstance1 = getHazelcastInstanceWithSerializer(new OrderSerializer());
+        HazelcastInstance clientInstance2 = getHazelcastInstanceWithSerializer(new OrderV2Serializer());
+        HazelcastInstance clientInstance3 = getHazelcastInstanceWithSerializer(new OrderV2Serializer(AmountEncoding.FIXED_POINT));
+
+        // written with both encodings: old and new readers see the same amount
+        OrderV2 orderV2 = new OrderV2(1, 123L, new BigDecimal("199.99"), "pending", "USD");
+        clientInstance2.getMap("orders").put(orderV2.id(), orderV2);
+        assertEquals(orderV2.amount(), clientInstance1.<Long, Order>getMap("orders").get(orderV2.id()).amount());
+        assertEquals(orderV2.amount(), clientInstance3.<Long, OrderV2>getMap("orders").get(orderV2.id()).amount());
+
+        // written with the fixed-point fields only: read back losslessly
+        OrderV2 fixedPoint = new OrderV2(2, 456L, new BigDecimal("10.500"), "pending", "USD");
+        clientInstance3.getMap("orders").put(fixedPoint.id(), fixedPoint);
+        assertEquals(fixedPoint.amount(), clientInstance2.<Long, OrderV2>getMap("orders").get(fixedPoint.id()).amount());
+
+        // too wide for 64-bit minor units: stored as a decimal only, read back from it
+        OrderV2 wide = new OrderV2(3, 789L, new BigDecimal("123456789012345678901234567890.12"), "pending", "USD");
+        clientInstance2.getMap("orders").put(wide.id(), wide);
+        assertEquals(wide.amount(), clientInstance2.<Long, OrderV2>getMap("orders").get(wide.id()).amount());
+        assertEquals(wide.amount(), clientInstance1.<Long, Order>getMap("orders").get(wide.id()).amount());
+    }
+
+    @Test
+    public void test_ClientCanRead_DictionaryEncodedFields() {
+
+        HazelcastInstance clientInstance1 = getHazelcastInstanceWithSerializer(new OrderV2Serializer());
+        HazelcastInstance clientInstance2 = getHazelcastInstanceWithSerializer(
+                new OrderV2Serializer(AmountEncoding.DECIMAL_AND_FIXED_POINT, StringEncoding.DICTIONARY));
+
+        // written as codes: read back as the dictionary's instances
+        OrderV2 coded = new OrderV2(1, 123L, new BigDecimal("199.99"), new String("pending"), new String("USD"));
+        clientInstance2.getMap("orders").put(coded.id(), coded);
+        OrderV2 read = clientInstance1.<Long, OrderV2>getMap("orders").get(coded.id());
+        assertEquals(coded, read);
+        assertSame(OrderDictionaries.STATUSES.canonical("pending"), read.status());
+        assertSame(OrderDictionaries.CURRENCIES.canonical("USD"), read.currency());
+
+        // values the dictionary doesn't know are kept as text
+        OrderV2 unknown = new OrderV2(2, 456L, new BigDecimal("10.50"), "on-hold", "XAU");
+        clientInstance2.getMap("orders").put(unknown.id(), unknown);
+        assertEquals(unknown, clientInstance1.<Long, OrderV2>getMap("orders").get(unknown.id()));
+
+        // old-schema strings are still readable by the dictionary-encoding serializer
+        OrderV2 plain = new OrderV2(3, 789L, new BigDecimal("5.00"), "ready", "GBP");
+        clientInstance1.getMap("orders").put(plain.id(), plain);
+        OrderV2 readPlain = clientInstance2.<Long, OrderV2>getMap("orders").get(plain.id());
+        assertEquals(plain, readPlain);
+        assertSame(OrderDictionaries.STATUSES.canonical("ready"), readPlain.status());
+    }
+
+    @Test
+    public void test_DictionaryEncoding_Reduces_MemoryFootprint() {
+
+        HazelcastInstance plainClient = getHazelcastInstanceWithSerializer(new OrderV2Serializer());
+        HazelcastInstance codedClient = getHazelcastInstanceWithSerializer(
+                new OrderV2Serializer(AmountEncoding.DECIMAL, StringEncoding.DICTIONARY));
+
+        int entries = 50_000;
+        Map<Long, OrderV2> batch = new HashMap<>();
+        for (long id = 0; id < entries; id++) {
+            batch.put(id, new OrderV2(id, id % 1000, BigDecimal.valueOf(id, 2), id % 2 == 0 ? "pending" : "delivered", "GBP"));
+            if (batch.size() == 10_000) {
+                plainClient.getMap("orders_plain").putAll(batch);
+                codedClient.getMap("orders_coded").putAll(batch);
+                batch.clear();
+            }
+        }
+
+        // the member owns every entry, so its local stats cover the whole map
+        long plainBytes = member.getMap("orders_plain").getLocalMapStats().getOwnedEntryMemoryCost();
+        long codedBytes = member.getMap("orders_coded").getLocalMapStats().getOwnedEntryMemoryCost();
+        assertEquals(entries, member.getMap("orders_plain").size());
+        assertEquals(entries, member.getMap("orders_coded").size());
+        assertTrue("plain: " + plainBytes + " bytes, coded: " + codedBytes + " bytes", codedBytes < plainBytes);
+    }
+
+    @Test
+    public void test_Upcaster_Reads_AllVersions_As_OrderV3() {
+
+        HazelcastInstance v1Client = getHazelcastInstanceWithSerializer(new OrderSerializer());
+        HazelcastInstance v2Client = getHazelcastInstanceWithSerializer(
+                new OrderV2Serializer(AmountEncoding.FIXED_POINT, StringEncoding.DICTIONARY));
+        UpcastingSerializer<OrderV3> upcasting = OrderUpcasters.orderV3Serializer();
+        HazelcastInstance v3Client = getHazelcastInstanceWithSerializer(upcasting);
+
+        for (long id = 0; id < 10; id++) {
+            v1Client.getMap("orders").put(id, new Order(id, 100L + id, new BigDecimal("1.50"), "pending"));
+            v2Client.getMap("orders").put(10 + id, new OrderV2(10 + id, 200L + id, new BigDecimal("2.50"), "paid", "EUR"));
+        }
+
+        IMap<Long, OrderV3> orders = v3Client.getMap("orders");
+        for (long id = 0; id < 10; id++) {
+            assertEquals(new OrderV3(id, 100L + id, new BigDecimal("1.50"), "pending", DEFAULT_CURRENCY), orders.get(id));
+            assertEquals(new OrderV3(10 + id, 200L + id, new BigDecimal("2.50"), "paid", "EUR"), orders.get(10 + id));
+        }
+        // one plan per stored schema, however many records were read
+        assertEquals(2, upcasting.resolvedPlans());
+        for (long id = 0; id < 20; id++) {
+            orders.get(id);
+        }
+        assertEquals(2, upcasting.resolvedPlans());
+        // every record was read with a cached plan: none fell back to resolving its own
+        assertEquals(0, upcasting.uncachedReads());
+
+        // written in the V2 layout: older clients still read it
+        orders.put(100L, new OrderV3(100L, 300L, new BigDecimal("3.50"), "ready", "USD"));
+        assertEquals(new OrderV2(100L, 300L, new BigDecimal("3.50"), "ready", "USD"),
+                v2Client.<Long, OrderV2>getMap("orders").get(100L));
+        assertEquals(300L, v1Client.<Long, Order>getMap("orders").get(100L).customerId());
+    }
+
+    @Test
+    public void test_GeneratedSerializers_Read_AllVersions() {
+
+        HazelcastInstance v1Client = getHazelcastInstanceWithSerializer(new OrderCompactSerializer());
+        HazelcastInstance v2Client = getHazelcastInstanceWithSerializer(new OrderV2Serializer());
+        HazelcastInstance encodedV2Client = getHazelcastInstanceWithSerializer(
+                new OrderV2Serializer(AmountEncoding.FIXED_POINT, StringEncoding.DICTIONARY));
+        HazelcastInstance generatedV2Client = getHazelcastInstanceWithSerializer(new OrderV2CompactSerializer());
+        HazelcastInstance v3Client = getHazelcastInstanceWithSerializer(new OrderAsV3CompactSerializer());
+
+        v1Client.getMap("orders").put(1L, new Order(1L, 100L, new BigDecimal("1.50"), "pending"));
+        v2Client.getMap("orders").put(2L, new OrderV2(2L, 200L, new BigDecimal("2.50"), "paid", "EUR"));
+        generatedV2Client.getMap("orders").put(3L, new OrderV2(3L, 300L, new BigDecimal("3.50"), "ready", "USD"));
+        // no amount decimal nor status and currency strings: only the codecs read it
+        encodedV2Client.getMap("orders").put(4L, new OrderV2(4L, 400L, new BigDecimal("4.50"), "shipped", "JPY"));
+
+        // field default for the record written before currency existed
+        IMap<Long, OrderV2> v2Orders = generatedV2Client.getMap("orders");
+        assertEquals(new OrderV2(1L, 100L, new BigDecimal("1.50"), "pending", "GBP"), v2Orders.get(1L));
+        assertEquals(new OrderV2(2L, 200L, new BigDecimal("2.50"), "paid", "EUR"), v2Orders.get(2L));
+        assertEquals(new OrderV2(4L, 400L, new BigDecimal("4.50"), "shipped", "JPY"), v2Orders.get(4L));
+
+        // alias: customerId read as accountId, whichever serializer wrote it
+        IMap<Long, OrderAsV3> v3Orders = v3Client.getMap("orders");
+        assertEquals(new OrderAsV3(1L, 100L, new BigDecimal("1.50"), "pending", "GBP"), v3Orders.get(1L));
+        assertEquals(new OrderAsV3(2L, 200L, new BigDecimal("2.50"), "paid", "EUR"), v3Orders.get(2L));
+        assertEquals(new OrderAsV3(3L, 300L, new BigDecimal("3.50"), "ready", "USD"), v3Orders.get(3L));
+        assertEquals(new OrderAsV3(4L, 400L, new BigDecimal("4.50"), "shipped", "JPY"), v3Orders.get(4L));
+
+        // written by the generated serializer: hand-written ones still read it
+        assertEquals(new OrderV2(3L, 300L, new BigDecimal("3.50"), "ready", "USD"),
+                v2Client.<Long, OrderV2>getMap("orders").get(3L));
+        assertEquals(300L, v1Client.<Long, Order>getMap("orders").get(3L).customerId());
+    }
+
+    @Test
+    public void test_SchemaWarmup_Registers_Schemas_Before_FirstRequest() {
+
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setClusterName(clusterName);
+        SchemaWarmup warmup = SchemaWarmup.forOrderV2Clients();
+        HazelcastInstance v2Client = warmup.newClient(clientConfig, hazelcastFactory::newHazelcastClient);
+        // already warmed up: reports the same schemas again, with nothing left to send
+        SchemaWarmup.Report report = warmup.warmUp(v2Client);
+        assertEquals(1, report.written().size());
+        assertEquals(1, report.read().size());
+        assertTrue(report.toString(), report.toString().startsWith("1 schemas replicated, 1 registered locally in "));
+        long v2SchemaId = report.written().iterator().next();
+        long v1SchemaId = report.read().iterator().next();
+
+        // the written schema is on the cluster before the first put: the put doesn't send it
+        SchemaService memberSchemas = getNodeEngineImpl(member).getSchemaService();
+        assertNotNull(memberSchemas.get(v2SchemaId));
+        // no V1 client has connected yet: the client knows the V1 schema without having fetched it
+        assertNull(memberSchemas.get(v1SchemaId));
+        assertNotNull(((HazelcastClientProxy) v2Client).client.getSchemaService().get(v1SchemaId));
+
+        HazelcastInstance v1Client = getHazelcastInstanceWithSerializer(new OrderSerializer());
+        v1Client.getMap("orders").put(1L, new Order(1L, 100L, new BigDecimal("1.50"), "pending"));
+        v2Client.getMap("orders").put(2L, new OrderV2(2L, 200L, new BigDecimal("2.50"), "paid", "EUR"));
+        assertEquals(new OrderV2(1L, 100L, new BigDecimal("1.50"), "pending", DEFAULT_CURRENCY),
+                v2Client.<Long, OrderV2>getMap("orders").get(1L));
+        assertEquals(200L, v1Client.<Long, Order>getMap("orders").get(2L).customerId());
+    }
+
     private HazelcastInstance getHazelcastInstanceWithSerializer(CompactSerializer<?> ser) {
         ClientConfig clientConfig = new ClientConfig();
         clientConfig.setClusterName(clusterName);
@@ -2,8 +2,10 @@ package com.fcannizzohz.samples.schemaevolution.schemaevolution;
 
 import com.fcannizzohz.samples.schemaevolution.model.Order;
 import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.serializers.AmountEncoding;
 import com.fcannizzohz.samples.schemaevolution.serializers.OrderSerializer;
 import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.SqlMappings;
 import com.hazelcast.client.test.TestHazelcastFactory;
 import com.hazelcast.config.CompactSerializationConfig;
 import com.hazelcast.config.Config;
@@ -18,6 +20,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.hazelcast.test.HazelcastTestSupport.randomName;
@@ -61,6 +66,24 @@ public class CompatibleChangesWithSQLTest {
             );
             """;
 
+    private static final String MAPPING_V2_FIXED_POINT = """
+            CREATE OR REPLACE MAPPING orders (
+                id BIGINT,
+                customerId BIGINT,
+                amount DECIMAL,
+                amountMinorUnits BIGINT,
+                amountScale INT,
+                status VARCHAR,
+                currency VARCHAR
+            )
+            TYPE IMap
+            OPTIONS (
+                'keyFormat' = 'bigint',
+                'valueFormat' = 'compact',
+                'valueCompactTypeName' = 'com.acme.Order'  -- matches Compact typeName in serializer
+            );
+            """;
+
     @BeforeClass
     public static void beforeClass() {
         hazelcastFactory = new TestHazelcastFactory();
@@ -85,6 +108,39 @@ public class CompatibleChangesWithSQLTest {
         hazelcastFactory.terminateAll();
     }
 
+    @Test
+    public void test_GeneratedMappings_Match_Serializers() {
+        Map<String, String> v1Columns = SqlMappings.columns(new OrderSerializer(),
+                new Order(1, 123L, BigDecimal.ONE, "pending"));
+        assertEquals(List.of("id", "customerId", "amount", "status"), List.copyOf(v1Columns.keySet()));
+
+        Map<String, String> v2Columns = SqlMappings.columns(new OrderV2Serializer(AmountEncoding.DECIMAL_AND_FIXED_POINT),
+                new OrderV2(1, 123L, BigDecimal.ONE, "pending", "USD"));
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("id", "BIGINT");
+        expected.put("customerId", "BIGINT");
+        expected.put("amount", "DECIMAL");
+        expected.put("amountMinorUnits", "BIGINT");
+        expected.put("amountScale", "INT");
+        expected.put("status", "VARCHAR");
+        expected.put("currency", "VARCHAR");
+        assertEquals(expected, v2Columns);
+
+        // the generated mapping reads what the serializer wrote
+        HazelcastInstance instance = setupInstance(new OrderV2Serializer(AmountEncoding.DECIMAL_AND_FIXED_POINT));
+        OrderV2 order = new OrderV2(1, 123L, new BigDecimal("19.99"), "pending", "USD");
+        instance.getMap("orders").put(order.id(), order);
+        try (SqlResult r = instance.getSql().execute(SqlMappings.createMapping("orders", "bigint",
+                new OrderV2Serializer(AmountEncoding.DECIMAL_AND_FIXED_POINT), order))) {
+            assertNotNull(r);
+        }
+        try (SqlResult result = instance.getSql().execute("SELECT amountMinorUnits, currency FROM orders WHERE id = 1")) {
+            SqlRow row = getSqlRow(result);
+            assertEquals(Long.valueOf(1999), row.getObject("amountMinorUnits"));
+            assertEquals("USD", row.getObject("currency"));
+        }
+    }
+
     @Test
     public void test_ClientSQL_Reads_OnlyOldMapping_With_OldSerializer() {
         HazelcastInstance instance = setupInstance(new OrderSerializer());
@@ -142,6 +198,49 @@ public class CompatibleChangesWithSQLTest {
 
     }
 
+    @Test
+    public void test_ClientSQL_Sums_FixedPointAmount() {
+        HazelcastInstance instance = setupInstance(new OrderV2Serializer(AmountEncoding.DECIMAL_AND_FIXED_POINT));
+        SqlService sql = instance.getSql();
+        try(SqlResult r = sql.execute(MAPPING_V2_FIXED_POINT)) {
+            assertNotNull(r);
+        }
+
+        OrderV2 order1 = new OrderV2(1, 123L, new BigDecimal("199.99"), "pending", "EUR");
+        OrderV2 order2 = new OrderV2(2, 456L, new BigDecimal("0.01"), "ready", "EUR");
+        instance.getMap("orders").put(order1.id(), order1);
+        instance.getMap("orders").put(order2.id(), order2);
+
+        try(SqlResult result = sql.execute("select sum(amountMinorUnits) as total from orders where amountScale = 2")) {
+            SqlRow row = getSqlRow(result);
+            assertEquals(20000L, Long.valueOf(row.getObject("total").toString()).longValue());
+        }
+
+        // the legacy column is still written during the transition
+        try(SqlResult result = sql.execute("select amount from orders where id = 1")) {
+            SqlRow row = getSqlRow(result);
+            assertEquals(0, order1.amount().compareTo(new BigDecimal(row.getObject("amount").toString())));
+        }
+    }
+
+    @Test
+    public void test_ClientSQL_Reads_LegacyAmount_As_Null_FixedPoint() {
+        HazelcastInstance instance = setupInstance(new OrderSerializer());
+        SqlService sql = instance.getSql();
+        try(SqlResult r = sql.execute(MAPPING_V2_FIXED_POINT)) {
+            assertNotNull(r);
+        }
+
+        Order order1 = new Order(1, 123L, BigDecimal.valueOf(199), "pending");
+        instance.getMap("orders").put(order1.id(), order1);
+
+        try(SqlResult result = sql.execute("select * from orders where id = 1")) {
+            SqlRow row = getSqlRow(result);
+            assertNull(row.getObject("amountMinorUnits"));
+            assertEquals(0, order1.amount().compareTo(new BigDecimal(row.getObject("amount").toString())));
+        }
+    }
+
     private static SqlRow getSqlRow(SqlResult result) {
         Optional<SqlRow> id1opt = result.stream().findFirst();
         assertTrue(id1opt.isPresent());
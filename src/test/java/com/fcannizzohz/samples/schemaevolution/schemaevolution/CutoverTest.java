@@ -0,0 +1,148 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.CutoverCoordinator;
+import com.fcannizzohz.samples.schemaevolution.migration.CutoverReport;
+import com.fcannizzohz.samples.schemaevolution.migration.CutoverRouter;
+import com.fcannizzohz.samples.schemaevolution.migration.MigrationMetrics;
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EventJournalConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.map.IMap;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CutoverTest {
+
+    private static final long WRITE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        // enables journal in orders map
+        EventJournalConfig jConf = new EventJournalConfig();
+        jConf.setEnabled(true);
+        // room for the writers running until the cutover: the default policy fails the job once events are lost
+        jConf.setCapacity(100_000);
+        config.getMapConfig("orders").setEventJournalConfig(jConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_Cutover_Loses_No_Updates_Under_ConcurrentWriters() throws Exception {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < 1_000; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("backfill-then-tail-cutover")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createBackfillThenTailPipeline(), cfg);
+        assertTrueEventually(() -> assertTrue(MigrationMetrics.isBackfilled(instance, job)));
+
+        int writers = 4;
+        // each writer owns its keys, so the last acknowledged write of a key is the one that must survive
+        Map<Long, OrderV2> acknowledged = new ConcurrentHashMap<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Duration>> blocked = new ArrayList<>();
+        CutoverReport report;
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            for (int w = 0; w < writers; w++) {
+                long writer = w;
+                blocked.add(executor.submit(() -> {
+                    try (CutoverRouter<Long, OrderV2, OrderV3> router = CutoverRouter.forOrders(instance)) {
+                        for (long i = 0; running.get(); i++) {
+                            long id = writer + writers * (i % 250);
+                            OrderV2 order = new OrderV2(id, 1000L + id, BigDecimal.valueOf(i), "status-" + i, "USD");
+                            router.set(id, order);
+                            acknowledged.put(id, order);
+                            // a steady write rate the tail keeps up with: the drain measures the cutover, not a backlog
+                            LockSupport.parkNanos(WRITE_INTERVAL_NANOS);
+                        }
+                        assertTrue(router.isCutOver());
+                        return router.maxBlocked();
+                    }
+                }));
+            }
+
+            Thread.sleep(500);
+            report = CutoverCoordinator.forOrders(instance).cutover(Duration.ofSeconds(30));
+            // writers carry on against orders_v3
+            Thread.sleep(500);
+            running.set(false);
+        }
+
+        assertTrue(report.keysChecked() > 0);
+        // reading every partition's journal head and the pipeline writing the tail's last events
+        Duration maxUnavailable = Duration.ofSeconds(1);
+        assertTrue("cutover: " + report, report.unavailable().compareTo(maxUnavailable) < 0);
+        for (Future<Duration> writerBlocked : blocked) {
+            assertTrue("writer blocked for " + writerBlocked.get().toMillis() + " ms",
+                    writerBlocked.get().compareTo(maxUnavailable) < 0);
+        }
+        // every acknowledged write is in orders_v3, copied by the tail or written there after the flip
+        for (Map.Entry<Long, OrderV2> e : acknowledged.entrySet()) {
+            OrderV2 order = e.getValue();
+            assertEquals(new OrderV3(order.id(), order.customerId(), order.amount(), order.status(), order.currency()),
+                    ordersV3.get(e.getKey()));
+        }
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+}
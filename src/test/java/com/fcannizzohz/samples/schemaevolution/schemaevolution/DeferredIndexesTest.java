@@ -0,0 +1,113 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.DeferredIndexes;
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EventJournalConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.map.IMap;
+import com.hazelcast.query.Predicates;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeferredIndexesTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        // enables journal in orders map
+        EventJournalConfig jConf = new EventJournalConfig();
+        jConf.setEnabled(true);
+        config.getMapConfig("orders").setEventJournalConfig(jConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_Indexes_Built_After_BulkMigration() {
+        for (long id = 0; id < 100; id++) {
+            instance.getMap("orders").set(id, new OrderV2(id, 1000L + id % 10, BigDecimal.valueOf(id),
+                    id % 2 == 0 ? "pending" : "ready", "USD"));
+        }
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createBulkPipeline());
+        DeferredIndexes.forOrdersV3().buildAfter(instance, job);
+
+        Map<String, ?> indexStats = ordersV3.getLocalMapStats().getIndexStats();
+        assertEquals(Set.of("orders_v3_accountId", "orders_v3_status", "orders_v3_statusCode"), indexStats.keySet());
+        Collection<OrderV3> matching = ordersV3.values(Predicates.and(
+                Predicates.equal("accountId", 1003L), Predicates.equal("status", "ready")));
+        assertEquals(10, matching.size());
+        assertTrue(ordersV3.getLocalMapStats().getIndexStats().get("orders_v3_accountId").getQueryCount() > 0);
+    }
+
+    @Test
+    public void test_Indexes_Built_After_Backfill_Then_Maintained_By_Tail() throws Exception {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < 1_000; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("backfill-then-tail-indexes")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createBackfillThenTailPipeline(), cfg);
+        DeferredIndexes.forOrdersV3().buildAfterBackfill(instance, job).get(2, TimeUnit.MINUTES);
+        assertEquals(3, ordersV3.getLocalMapStats().getIndexStats().size());
+
+        // written by the tail after the build: found through the index
+        orders.set(5_000L, new OrderV2(5_000L, 99L, BigDecimal.ONE, "paid", "USD"));
+        assertTrueEventually(() -> assertEquals(1, ordersV3.values(Predicates.equal("accountId", 99L)).size()));
+        assertEquals(1, ordersV3.values(Predicates.equal("status", "paid")).size());
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.MigratingIMap;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.map.IMap;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MigratingIMapTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_MigratingIMap_Converges_UnderConcurrentReadsAndWrites() {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        Map<Long, OrderV3> expected = new ConcurrentHashMap<>();
+        for (long id = 0; id < 2_000; id++) {
+            OrderV2 order = new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD");
+            orders.set(id, order);
+            expected.put(id, new OrderV3(id, order.customerId(), order.amount(), order.status(), order.currency()));
+        }
+
+        try (MigratingIMap<Long, OrderV2, OrderV3> view = MigratingIMap.forOrders(instance)) {
+            view.startSweeper(100, 10, TimeUnit.MILLISECONDS);
+            try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+                // readers: every read sees the latest value, migrated or not
+                for (int r = 0; r < 2; r++) {
+                    executor.submit(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < 10_000; i++) {
+                            long id = random.nextLong(2_500);
+                            OrderV3 read = view.get(id);
+                            if (read != null) {
+                                assertEquals(1000L + id, read.accountId());
+                            }
+                        }
+                    });
+                }
+                // writer: updates, deletes and inserts through the view
+                executor.submit(() -> {
+                    for (long i = 0; i < 5_000; i++) {
+                        long id = i % 2_500;
+                        if (i % 5 == 0) {
+                            view.delete(id);
+                            expected.remove(id);
+                        } else {
+                            OrderV3 order = new OrderV3(id, 1000L + id, BigDecimal.valueOf(i), "status-" + i, "USD");
+                            view.set(id, order);
+                            expected.put(id, order);
+                        }
+                    }
+                });
+            }
+
+            assertTrueEventually(() -> assertTrue(view.isMigrated()));
+        }
+
+        assertEquals(expected.size(), ordersV3.size());
+        for (Map.Entry<Long, OrderV3> e : expected.entrySet()) {
+            assertEquals(e.getValue(), ordersV3.get(e.getKey()));
+        }
+    }
+}
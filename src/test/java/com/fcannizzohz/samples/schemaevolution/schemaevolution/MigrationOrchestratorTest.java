@@ -0,0 +1,93 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.AdaptiveRateLimiter;
+import com.fcannizzohz.samples.schemaevolution.migration.MapMigration;
+import com.fcannizzohz.samples.schemaevolution.migration.MigrationOrchestrator;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.map.IMap;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MigrationOrchestratorTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_Orchestrator_Migrates_SmallestMapsFirst_Within_Budget() throws Exception {
+        Map<String, Integer> sizes = Map.of("orders", 2_000, "orders_eu", 200, "orders_us", 800);
+        sizes.forEach((name, size) -> {
+            IMap<Long, OrderV2> map = instance.getMap(name);
+            for (long id = 0; id < size; id++) {
+                map.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+            }
+        });
+
+        List<MapMigration<?, ?, ?>> release = List.of(
+                MapMigration.orders(),
+                new MapMigration<Long, OrderV2, OrderV3>("orders_eu", "orders_eu_v3",
+                        o -> new OrderV3(o.id(), o.customerId(), o.amount(), o.status(), o.currency())),
+                new MapMigration<Long, OrderV2, BigDecimal>("orders_us", "order_amounts_us", OrderV2::amount));
+        MigrationOrchestrator orchestrator = new MigrationOrchestrator(instance, 2, 50_000);
+        orchestrator.start(release).get(2, TimeUnit.MINUTES);
+
+        // smallest first
+        assertEquals(List.of("migrate-orders_eu-to-orders_eu_v3", "migrate-orders_us-to-order_amounts_us",
+                        "migrate-orders-to-orders_v3"),
+                orchestrator.jobs().stream().map(Job::getName).toList());
+        // two jobs at a time, sharing the budget: none was given more than half of it
+        for (Job job : orchestrator.jobs()) {
+            long share = Long.parseLong(job.getConfig().getArgument(AdaptiveRateLimiter.MAX_RECORDS_PER_SECOND).toString());
+            assertTrue(job.getName() + " got " + share, share <= 25_000);
+        }
+
+        MigrationOrchestrator.Progress progress = orchestrator.progress();
+        assertEquals(3, progress.migrationsCompleted());
+        assertEquals(3_000, progress.recordsTotal());
+        assertEquals(3_000, progress.recordsMigrated());
+        assertEquals(2_000, instance.getMap("orders_v3").size());
+        assertEquals(200, instance.getMap("orders_eu_v3").size());
+        assertEquals(BigDecimal.valueOf(799), instance.<Long, BigDecimal>getMap("order_amounts_us").get(799L));
+    }
+}
@@ -0,0 +1,221 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.Order;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderSerializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV2Serializer;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderV3Serializer;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EventJournalConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+
+/**
+ * In-process load generator that measures what a migration costs the foreground traffic.
+ * <p>
+ * Clients registered with {@link OrderSerializer} and with {@link OrderV2Serializer} run a
+ * get/set/delete mix against {@code orders}, each from many virtual threads, for the whole
+ * run. The run has three phases: before the migration, during the bulk migration (with the
+ * tail pipeline already following the journal), and after it, while the tail keeps running.
+ * Each phase reports the foreground throughput and latency percentiles.
+ * <p>
+ * Every thread draws its keys and operations from its own {@link SplittableRandom}, split
+ * from the workload's seed in a fixed order, so a run with the same seed replays the same
+ * operation sequence per thread. The seed is part of the report.
+ */
+public final class MixedVersionLoadHarness {
+
+    /**
+     * @param v1Clients        clients registered with {@link OrderSerializer}
+     * @param v2Clients        clients registered with {@link OrderV2Serializer}
+     * @param threadsPerClient virtual threads sharing each client
+     * @param keys             key space of {@code orders}, loaded before the run
+     * @param getPercent       share of gets; the rest after sets are deletes
+     * @param setPercent       share of sets
+     * @param phaseDuration    length of the phases before and after the migration
+     * @param seed             seed of the threads' operation sequences
+     */
+    public record Workload(int v1Clients, int v2Clients, int threadsPerClient, int keys,
+                           int getPercent, int setPercent, Duration phaseDuration, long seed) {
+    }
+
+    public record PhaseReport(String phase, Duration duration, long operations,
+                              long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+
+        static PhaseReport of(String phase, Duration duration, Histogram latencies) {
+            return new PhaseReport(phase, duration, latencies.getTotalCount(),
+                    latencies.getValueAtPercentile(50), latencies.getValueAtPercentile(99),
+                    latencies.getValueAtPercentile(99.9), latencies.getMaxValue());
+        }
+
+        public double operationsPerSecond() {
+            return duration.isZero() ? 0 : operations * 1000.0 / duration.toMillis();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-7s %8.0f ops/s  p50 %6d us  p99 %6d us  p99.9 %6d us  max %6d us",
+                    phase, operationsPerSecond(), p50Micros, p99Micros, p999Micros, maxMicros);
+        }
+    }
+
+    public record Report(long seed, List<PhaseReport> phases, Duration migrationDuration) {
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("seed ").append(seed).append('\n');
+            phases.forEach(p -> sb.append(p).append('\n'));
+            return sb.append("bulk migration took ").append(migrationDuration.toMillis()).append(" ms").toString();
+        }
+    }
+
+    private final TestHazelcastFactory hazelcastFactory;
+
+    public MixedVersionLoadHarness(TestHazelcastFactory hazelcastFactory) {
+        this.hazelcastFactory = hazelcastFactory;
+    }
+
+    public Report run(Workload workload) throws InterruptedException {
+        String clusterName = randomName();
+        HazelcastInstance member = hazelcastFactory.newHazelcastInstance(memberConfig(clusterName));
+        List<HazelcastInstance> v1 = clients(clusterName, new OrderSerializer(), workload.v1Clients());
+        List<HazelcastInstance> v2 = clients(clusterName, new OrderV2Serializer(), workload.v2Clients());
+        load(v2.isEmpty() ? member : v2.get(0), workload.keys());
+
+        Recorder latencies = new Recorder(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<PhaseReport> phases = new ArrayList<>();
+        Duration migrationDuration;
+        SplittableRandom seeds = new SplittableRandom(workload.seed());
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < workload.threadsPerClient(); t++) {
+                for (HazelcastInstance client : v1) {
+                    SplittableRandom random = seeds.split();
+                    threads.submit(() -> runClient(client, false, workload, random, latencies, running));
+                }
+                for (HazelcastInstance client : v2) {
+                    SplittableRandom random = seeds.split();
+                    threads.submit(() -> runClient(client, true, workload, random, latencies, running));
+                }
+            }
+
+            try {
+                long phaseStart = System.nanoTime();
+                latencies.reset();
+                Thread.sleep(workload.phaseDuration().toMillis());
+                phaseStart = endPhase("before", phaseStart, latencies, phases);
+
+                Job tail = member.getJet().newJob(V2toV3PipelineFactory.createTailPipeline(member));
+                member.getJet().newJob(V2toV3PipelineFactory.createBulkPipeline()).join();
+                migrationDuration = Duration.ofNanos(System.nanoTime() - phaseStart);
+                phaseStart = endPhase("during", phaseStart, latencies, phases);
+
+                Thread.sleep(workload.phaseDuration().toMillis());
+                endPhase("after", phaseStart, latencies, phases);
+
+                tail.cancel();
+                try {
+                    tail.join();
+                } catch (CancellationException e) {
+                    // ignore
+                }
+            } finally {
+                // the executor waits for the client threads when it is closed
+                running.set(false);
+            }
+        }
+        return new Report(workload.seed(), phases, migrationDuration);
+    }
+
+    private static long endPhase(String phase, long phaseStart, Recorder latencies, List<PhaseReport> phases) {
+        long now = System.nanoTime();
+        // the interval histogram holds what was recorded since the previous call
+        phases.add(PhaseReport.of(phase, Duration.ofNanos(now - phaseStart), latencies.getIntervalHistogram()));
+        return now;
+    }
+
+    private static void runClient(HazelcastInstance client, boolean v2, Workload workload, SplittableRandom random,
+                                  Recorder latencies, AtomicBoolean running) {
+        IMap<Long, Object> orders = client.getMap("orders");
+        while (running.get()) {
+            long id = random.nextLong(workload.keys());
+            int op = random.nextInt(100);
+            long start = System.nanoTime();
+            if (op < workload.getPercent()) {
+                orders.get(id);
+            } else if (op < workload.getPercent() + workload.setPercent()) {
+                orders.set(id, v2
+                        ? new OrderV2(id, 1000L + id, BigDecimal.valueOf(op), "pending", "USD")
+                        : new Order(id, 1000L + id, BigDecimal.valueOf(op), "pending"));
+            } else {
+                orders.delete(id);
+            }
+            latencies.recordValue((System.nanoTime() - start) / 1_000);
+        }
+    }
+
+    private static void load(HazelcastInstance instance, int keys) {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        Map<Long, OrderV2> batch = new HashMap<>();
+        for (long id = 0; id < keys; id++) {
+            batch.put(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+            if (batch.size() == 1_000) {
+                orders.putAll(batch);
+                batch.clear();
+            }
+        }
+        orders.putAll(batch);
+    }
+
+    private static Config memberConfig(String clusterName) {
+        Config config = new Config();
+        config.setClusterName(clusterName);
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+        config.getJetConfig().setEnabled(true);
+        // the pipelines convert OrderV2 objects, v1 data included thanks to the currency fallback
+        config.getSerializationConfig()
+              .getCompactSerializationConfig()
+              .addSerializer(new OrderV2Serializer())
+              .addSerializer(new OrderV3Serializer());
+
+        EventJournalConfig journal = new EventJournalConfig();
+        journal.setEnabled(true);
+        journal.setCapacity(1_000_000);
+        config.getMapConfig("orders").setEventJournalConfig(journal);
+        return config;
+    }
+
+    private List<HazelcastInstance> clients(String clusterName, CompactSerializer<?> serializer, int count) {
+        List<HazelcastInstance> clients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ClientConfig clientConfig = new ClientConfig();
+            clientConfig.setClusterName(clusterName);
+            clientConfig.getSerializationConfig()
+                        .getCompactSerializationConfig()
+                        .addSerializer(serializer);
+            clients.add(hazelcastFactory.newHazelcastClient(clientConfig));
+        }
+        return clients;
+    }
+}
@@ -0,0 +1,57 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.schemaevolution.MixedVersionLoadHarness.PhaseReport;
+import com.fcannizzohz.samples.schemaevolution.schemaevolution.MixedVersionLoadHarness.Report;
+import com.fcannizzohz.samples.schemaevolution.schemaevolution.MixedVersionLoadHarness.Workload;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MixedVersionLoadHarnessTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_Harness_Reports_EveryPhase() throws InterruptedException {
+        Workload workload = new Workload(2, 2, 50, 10_000, 80, 15, Duration.ofSeconds(2), 42);
+
+        Report report = new MixedVersionLoadHarness(hazelcastFactory).run(workload);
+
+        // the seed is reported, so the run can be replayed
+        assertEquals(42, report.seed());
+        assertTrue(report.toString(), report.toString().startsWith("seed 42\n"));
+
+        assertEquals(List.of("before", "during", "after"), report.phases().stream().map(PhaseReport::phase).toList());
+        for (PhaseReport phase : report.phases()) {
+            assertTrue(phase.phase() + " ran no operations", phase.operations() > 0);
+            assertTrue(phase.phase() + " took no time", phase.duration().toNanos() > 0);
+            // percentiles of one histogram can't decrease
+            assertTrue(phase.toString(), phase.p50Micros() <= phase.p99Micros());
+            assertTrue(phase.toString(), phase.p99Micros() <= phase.p999Micros());
+            assertTrue(phase.toString(), phase.p999Micros() <= phase.maxMicros());
+        }
+        // the phases around the migration last at least the configured time
+        assertTrue(report.phases().get(0).duration().compareTo(workload.phaseDuration()) >= 0);
+        assertTrue(report.phases().get(2).duration().compareTo(workload.phaseDuration()) >= 0);
+        // the "during" phase ends right after the migration
+        assertTrue(report.migrationDuration().toNanos() > 0);
+        assertTrue(report.phases().get(1).duration().compareTo(report.migrationDuration()) >= 0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.Reconciliation;
+import com.fcannizzohz.samples.schemaevolution.migration.ReconciliationReport;
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.map.IMap;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReconciliationTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_Reconciliation_Reports_DivergentKeys() {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < 10_000; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id, 2), "pending", "USD"));
+        }
+        instance.getJet().newJob(V2toV3PipelineFactory.createBulkPipeline()).join();
+
+        ReconciliationReport<Long> clean = Reconciliation.forOrders(instance).run();
+        assertTrue(clean.isConsistent());
+        assertEquals(0, clean.bucketsDiffering());
+
+        ordersV3.delete(1L);
+        ordersV3.set(2L, new OrderV3(2, 1002L, BigDecimal.valueOf(2, 2), "cancelled", "USD"));
+        ordersV3.set(3L, new OrderV3(3, 1003L, new BigDecimal("0.030"), "pending", "USD"));
+        ordersV3.set(20_000L, new OrderV3(20_000, 1L, BigDecimal.ONE, "pending", "USD"));
+
+        ReconciliationReport<Long> report = Reconciliation.forOrders(instance).run();
+        assertEquals(Set.of(1L), report.missing());
+        assertEquals(Set.of(2L, 3L), report.different());
+        assertEquals(Set.of(20_000L), report.unexpected());
+        assertTrue(report.bucketsDiffering() <= 4);
+    }
+}
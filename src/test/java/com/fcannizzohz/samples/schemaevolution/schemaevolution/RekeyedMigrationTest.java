@@ -0,0 +1,150 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.AccountIdTranslator;
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.OrderKey;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.fcannizzohz.samples.schemaevolution.serializers.OrderKeySerializer;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EventJournalConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.JobStatus;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.PartitionService;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static com.hazelcast.test.HazelcastTestSupport.assertEqualsEventually;
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RekeyedMigrationTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        // enables journal in orders map
+        EventJournalConfig jConf = new EventJournalConfig();
+        jConf.setEnabled(true);
+        config.getMapConfig("orders").setEventJournalConfig(jConf);
+
+        // re-keyed pipelines: keys must serialize the same everywhere
+        config.getSerializationConfig()
+              .getCompactSerializationConfig()
+              .addSerializer(new OrderKeySerializer());
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_Rekeyed_Orders_CoLocated_By_Account() {
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<OrderKey, OrderV3> byAccount = instance.getMap(V2toV3PipelineFactory.ORDERS_V3_BY_ACCOUNT);
+        for (long id = 0; id < 100; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id % 5, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+
+        JobConfig cfg = new JobConfig()
+                .setName("rekeyed-tail-v2-to-v3")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job tail = instance.getJet().newJob(V2toV3PipelineFactory.createRekeyedTailPipeline(instance), cfg);
+        assertEqualsEventually(tail::getStatus, JobStatus.RUNNING);
+        instance.getJet().newJob(V2toV3PipelineFactory.createRekeyedBulkPipeline()).join();
+        assertEquals(100, byAccount.size());
+
+        // every order of an account lands in the account's partition
+        PartitionService partitions = instance.getPartitionService();
+        for (OrderKey key : byAccount.keySet()) {
+            assertEquals(partitions.getPartition(key.accountId()).getPartitionId(),
+                    partitions.getPartition(key).getPartitionId());
+        }
+
+        // deletes and account changes resolve the previous key from the journal's old value
+        orders.delete(0L);
+        orders.set(1L, new OrderV2(1L, 2000L, BigDecimal.ONE, "ready", "USD"));
+        assertTrueEventually(() -> {
+            assertEquals(99, byAccount.size());
+            assertFalse(byAccount.containsKey(new OrderKey(0L, 1000L)));
+            assertFalse(byAccount.containsKey(new OrderKey(1L, 1001L)));
+            assertEquals("ready", byAccount.get(new OrderKey(1L, 2000L)).status());
+        });
+
+        tail.cancel();
+        try {
+            tail.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void test_RekeyedTail_Translates_Old_And_New_AccountIds() {
+        // customer 1000 belongs to account 1 and customer 2000 to account 2
+        IMap<Long, Long> lookup = instance.getMap(AccountIdTranslator.CUSTOMER_ACCOUNTS);
+        lookup.set(1000L, 1L);
+        lookup.set(2000L, 2L);
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<OrderKey, OrderV3> byAccount = instance.getMap(V2toV3PipelineFactory.ORDERS_V3_BY_ACCOUNT);
+
+        JobConfig cfg = new JobConfig()
+                .setName("translating-rekeyed-tail-v2-to-v3")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job tail = instance.getJet().newJob(V2toV3PipelineFactory.createRekeyedTailPipeline(instance,
+                AccountIdTranslator.serviceFactory()), cfg);
+        assertEqualsEventually(tail::getStatus, JobStatus.RUNNING);
+
+        orders.set(1L, new OrderV2(1L, 1000L, BigDecimal.ONE, "pending", "USD"));
+        orders.set(2L, new OrderV2(2L, 1000L, BigDecimal.ONE, "pending", "USD"));
+        assertTrueEventually(() -> assertEquals(2, byAccount.size()));
+        assertTrue(byAccount.containsKey(new OrderKey(1L, 1L)));
+
+        // the previous key is resolved with the old value's translated account
+        orders.set(1L, new OrderV2(1L, 2000L, BigDecimal.ONE, "ready", "USD"));
+        orders.delete(2L);
+        assertTrueEventually(() -> {
+            assertEquals(1, byAccount.size());
+            assertEquals("ready", byAccount.get(new OrderKey(1L, 2L)).status());
+        });
+
+        tail.cancel();
+        try {
+            tail.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.fcannizzohz.samples.schemaevolution.schemaevolution;
+
+import com.fcannizzohz.samples.schemaevolution.migration.AccountIdTranslator;
+import com.fcannizzohz.samples.schemaevolution.migration.MigrationMetrics;
+import com.fcannizzohz.samples.schemaevolution.migration.V2toV3PipelineFactory;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV2;
+import com.fcannizzohz.samples.schemaevolution.model.OrderV3;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EventJournalConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.JobStatus;
+import com.hazelcast.map.IMap;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static com.hazelcast.test.HazelcastTestSupport.assertEqualsEventually;
+import static com.hazelcast.test.HazelcastTestSupport.assertSizeEventually;
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static com.hazelcast.test.HazelcastTestSupport.randomName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TailMigrationTest {
+
+    private static TestHazelcastFactory hazelcastFactory;
+    private HazelcastInstance instance;
+
+    @BeforeClass
+    public static void beforeClass() {
+        hazelcastFactory = new TestHazelcastFactory();
+    }
+
+    @Before
+    public void setupTest() {
+        Config config = new Config();
+        config.setClusterName(randomName());
+        config.setLicenseKey(System.getenv("HZ_LICENSEKEY"));
+
+        // enables jet
+        JetConfig jetConf = new JetConfig();
+        jetConf.setEnabled(true);
+        config.setJetConfig(jetConf);
+
+        // enables journal in orders map
+        EventJournalConfig jConf = new EventJournalConfig();
+        jConf.setEnabled(true);
+        // room for the bulk delete test: every put and every remove is a journal event
+        jConf.setCapacity(100_000);
+        config.getMapConfig("orders").setEventJournalConfig(jConf);
+
+        instance = hazelcastFactory.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        hazelcastFactory.terminateAll();
+    }
+
+    @Test
+    public void test_Deletes_Migrated_InBatches() {
+        int count = 5_000;
+        JobConfig cfg = new JobConfig()
+                .setName("tail-v2-to-v3-deletes")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createTailPipeline(instance), cfg);
+        assertEqualsEventually(job::getStatus, JobStatus.RUNNING);
+
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < count; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+        assertSizeEventually(count, ordersV3);
+
+        // bulk purge: every removal goes through the journal and the batched sink
+        for (long id = 0; id < count; id++) {
+            orders.delete(id);
+        }
+        assertSizeEventually(0, ordersV3);
+        assertTrueEventually(() -> assertEquals(count, MigrationMetrics.total(job, MigrationMetrics.DELETES)));
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void test_Tail_Applies_WritesOfAKey_InJournalOrder() {
+        int count = 2_000;
+        JobConfig cfg = new JobConfig()
+                .setName("tail-v2-to-v3-order")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createTailPipeline(instance), cfg);
+        assertEqualsEventually(job::getStatus, JobStatus.RUNNING);
+
+        // put, delete and put again in quick succession: the last write of every key must win
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (int round = 0; round < 3; round++) {
+            for (long id = 0; id < count; id++) {
+                orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(round), "pending", "USD"));
+                orders.delete(id);
+                if (id % 2 == 0) {
+                    orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(round), "paid", "USD"));
+                }
+            }
+        }
+        assertTrueEventually(() -> {
+            assertEquals(count / 2, ordersV3.size());
+            for (long id = 0; id < count; id += 2) {
+                OrderV3 v3 = ordersV3.get(id);
+                assertEquals("paid", v3.status());
+                assertEquals(0, BigDecimal.valueOf(2).compareTo(v3.amount()));
+            }
+        });
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void test_Tail_Translates_AccountIds_ThroughLookupMap() {
+        // customers 1000 to 1009 belong to account 1, the others have no account
+        IMap<Long, Long> lookup = instance.getMap(AccountIdTranslator.CUSTOMER_ACCOUNTS);
+        for (long customerId = 1000; customerId < 1010; customerId++) {
+            lookup.set(customerId, 1L);
+        }
+        JobConfig cfg = new JobConfig()
+                .setName("translating-tail-v2-to-v3")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createTailPipeline(instance,
+                AccountIdTranslator.serviceFactory()), cfg);
+        assertEqualsEventually(job::getStatus, JobStatus.RUNNING);
+
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        for (long id = 0; id < 20; id++) {
+            orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(id), "pending", "USD"));
+        }
+        orders.delete(0L);
+        assertTrueEventually(() -> {
+            assertEquals(19, ordersV3.size());
+            for (long id = 1; id < 20; id++) {
+                assertEquals(id < 10 ? 1L : 1000L + id, ordersV3.get(id).accountId());
+            }
+        });
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void test_CoalescingTail_Writes_FinalStatePerKey() {
+        JobConfig cfg = new JobConfig()
+                .setName("coalescing-tail-v2-to-v3")
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE);
+        Job job = instance.getJet().newJob(V2toV3PipelineFactory.createCoalescingTailPipeline(instance, 1_000), cfg);
+        assertEqualsEventually(job::getStatus, JobStatus.RUNNING);
+
+        // a burst of updates on a few hot keys, then some of them are deleted
+        IMap<Long, OrderV2> orders = instance.getMap("orders");
+        IMap<Long, OrderV3> ordersV3 = instance.getMap("orders_v3");
+        int updates = 0;
+        for (int round = 0; round < 50; round++) {
+            for (long id = 0; id < 100; id++) {
+                orders.set(id, new OrderV2(id, 1000L + id, BigDecimal.valueOf(round), "status-" + round, "USD"));
+                updates++;
+            }
+        }
+        for (long id = 0; id < 10; id++) {
+            orders.delete(id);
+        }
+
+        assertTrueEventually(() -> {
+            assertEquals(90, ordersV3.size());
+            for (long id = 10; id < 100; id++) {
+                assertEquals("status-49", ordersV3.get(id).status());
+            }
+        });
+        long writes = MigrationMetrics.total(job, MigrationMetrics.UPSERTS);
+        assertTrue("wrote " + writes + " upserts for " + updates + " updates", writes < updates);
+
+        job.cancel();
+        try {
+            job.join();
+        } catch (java.util.concurrent.CancellationException e) {
+            // ignore
+        }
+    }
+}